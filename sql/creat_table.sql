@@ -98,3 +98,12 @@ ALTER TABLE app
 
 ALTER TABLE app
     ADD COLUMN genStatus varchar(32) DEFAULT 'not_generated' NOT NULL COMMENT '生成状态：not_generated/generating/ready/failed';
+
+ALTER TABLE app
+    ADD COLUMN deployedVersion int DEFAULT 0 NOT NULL COMMENT '已部署版本号（版本清理时保留）';
+
+-- 回填已部署应用的部署版本（此前部署的都是当前版本），否则版本清理会删除它们正在线上的版本
+UPDATE app
+SET deployedVersion = currentVersion
+WHERE deployKey IS NOT NULL
+  AND deployedVersion = 0;
@@ -5,8 +5,10 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.uloaix.xiaolu_aicode.ai.guardrail.PromptSafetyInputGuardrail;
 import com.uloaix.xiaolu_aicode.ai.guardrail.RetryOutputGuardrail;
 import com.uloaix.xiaolu_aicode.ai.tools.ToolManager;
+import com.uloaix.xiaolu_aicode.config.AiServiceWarmUpConfig;
 import com.uloaix.xiaolu_aicode.exception.BusinessException;
 import com.uloaix.xiaolu_aicode.exception.ErrorCode;
+import com.uloaix.xiaolu_aicode.manager.AiServiceActivityManager;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.service.ChatHistoryService;
 import com.uloaix.xiaolu_aicode.utils.SpringContextUtil;
@@ -16,13 +18,19 @@ import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * AI服务创建工厂
@@ -41,6 +49,27 @@ public class AiCodeGeneratorServiceFactory {
     @Resource
     private ToolManager toolManager;
 
+    @Resource
+    private AiServiceActivityManager aiServiceActivityManager;
+
+    @Resource
+    private AiServiceWarmUpConfig aiServiceWarmUpConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 活跃记录中 Vue 工程创建 / 修改服务的类型标识
+     */
+    private static final String VUE_CREATE_SERVICE_TYPE = "vue_project_create";
+
+    private static final String VUE_MODIFY_SERVICE_TYPE = "vue_project_modify";
+
+    /**
+     * 对话记忆保留的最大消息数
+     */
+    private static final int CHAT_MEMORY_MAX_MESSAGES = 20;
+
     /**
      * AI 服务实例缓存
      * 缓存策略：
@@ -52,6 +81,7 @@ public class AiCodeGeneratorServiceFactory {
             .maximumSize(1000)
             .expireAfterWrite(Duration.ofMinutes(30))
             .expireAfterAccess(Duration.ofMinutes(10))
+            .recordStats()
             .removalListener((key, value, cause) -> {
                 log.debug("AI 服务实例被移除，缓存键: {}, 原因: {}", key, cause);
             })
@@ -64,6 +94,7 @@ public class AiCodeGeneratorServiceFactory {
             .maximumSize(1000)
             .expireAfterWrite(Duration.ofMinutes(30))
             .expireAfterAccess(Duration.ofMinutes(10))
+            .recordStats()
             .removalListener((key, value, cause) -> log.debug("Vue 创建服务实例被移除，appId: {}, 原因: {}", key, cause))
             .build();
 
@@ -74,9 +105,24 @@ public class AiCodeGeneratorServiceFactory {
             .maximumSize(1000)
             .expireAfterWrite(Duration.ofMinutes(30))
             .expireAfterAccess(Duration.ofMinutes(10))
+            .recordStats()
             .removalListener((key, value, cause) -> log.debug("Vue 修改服务实例被移除，appId: {}, 原因: {}", key, cause))
             .build();
 
+    /**
+     * 对话记忆缓存（按 appId 共享）
+     * 同一个应用的 HTML / 多文件 / Vue 创建 / Vue 修改服务共用一个记忆句柄，
+     * 冷启动时只从数据库加载一次，而不是每个服务缓存未命中都重新加载。
+     * 每次获取服务都会刷新访问时间，且不设写入过期：记忆不会先于仍在使用它的服务过期，
+     * 避免使用中的应用被重新从数据库加载、覆盖正在进行的对话记忆
+     */
+    private final Cache<Long, MessageWindowChatMemory> chatMemoryCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .recordStats()
+            .removalListener((key, value, cause) -> log.debug("对话记忆被移除，appId: {}, 原因: {}", key, cause))
+            .build();
+
     /**
      * 根据 appId 获取服务（带缓存）
      *  @param appId 应用ID
@@ -91,6 +137,8 @@ public class AiCodeGeneratorServiceFactory {
      *  @param codeGenType 服务类型
      */
     public AiCodeGeneratorService getAiCodeGeneratorService(long appId,CodeGenTypeEnum codeGenType) {
+        aiServiceActivityManager.recordActivity(appId, codeGenType.getValue());
+        touchChatMemory(appId);
         String cacheKey = buildCacheKey(appId, codeGenType);
         return serviceCache.get(cacheKey,key -> createAiCodeGeneratorService(appId, codeGenType));
     }
@@ -99,6 +147,8 @@ public class AiCodeGeneratorServiceFactory {
      * 获取 Vue 工程创建服务（带缓存）
      */
     public AiVueProjectCreateService getAiVueProjectCreateService(long appId) {
+        aiServiceActivityManager.recordActivity(appId, VUE_CREATE_SERVICE_TYPE);
+        touchChatMemory(appId);
         return vueCreateServiceCache.get(appId, key -> createAiVueProjectCreateService(appId));
     }
 
@@ -106,9 +156,81 @@ public class AiCodeGeneratorServiceFactory {
      * 获取 Vue 工程修改服务（带缓存）
      */
     public AiVueProjectModifyService getAiVueProjectModifyService(long appId) {
+        aiServiceActivityManager.recordActivity(appId, VUE_MODIFY_SERVICE_TYPE);
+        touchChatMemory(appId);
         return vueModifyServiceCache.get(appId, key -> createAiVueProjectModifyService(appId));
     }
 
+    /**
+     * 注册缓存命中率 / 加载耗时等指标（/actuator/metrics/cache.*）
+     */
+    @PostConstruct
+    public void registerCacheMetrics() {
+        CaffeineCacheMetrics.monitor(meterRegistry, serviceCache, "aiCodeGeneratorService");
+        CaffeineCacheMetrics.monitor(meterRegistry, vueCreateServiceCache, "aiVueProjectCreateService");
+        CaffeineCacheMetrics.monitor(meterRegistry, vueModifyServiceCache, "aiVueProjectModifyService");
+        CaffeineCacheMetrics.monitor(meterRegistry, chatMemoryCache, "aiChatMemory");
+    }
+
+    /**
+     * 启动完成后预热最近活跃应用的 AI 服务（虚拟线程中逐个构建，不阻塞启动）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpRecentServices() {
+        if (!aiServiceWarmUpConfig.isEnabled()) {
+            return;
+        }
+        long recentMillis = Duration.ofMinutes(aiServiceWarmUpConfig.getRecentMinutes()).toMillis();
+        List<String> activities = aiServiceActivityManager.listRecentActivities(recentMillis, aiServiceWarmUpConfig.getMaxServices());
+        if (activities.isEmpty()) {
+            return;
+        }
+        Thread.ofVirtual().name("ai-service-warm-up").start(() -> {
+            long start = System.currentTimeMillis();
+            int warmed = 0;
+            for (String activity : activities) {
+                if (warmUpService(activity)) {
+                    warmed++;
+                }
+            }
+            log.info("AI 服务预热完成，预热 {}/{} 个服务，耗时 {} ms", warmed, activities.size(), System.currentTimeMillis() - start);
+        });
+    }
+
+    /**
+     * 预热单个服务（直接写入本地缓存，不刷新活跃时间）
+     *
+     * @param activity 活跃记录（appId:服务类型）
+     * @return 是否预热成功
+     */
+    private boolean warmUpService(String activity) {
+        int separatorIndex = activity.indexOf(':');
+        if (separatorIndex <= 0) {
+            return false;
+        }
+        try {
+            long appId = Long.parseLong(activity.substring(0, separatorIndex));
+            String serviceType = activity.substring(separatorIndex + 1);
+            // 先放入预热专用的记忆句柄，下面构建服务时直接命中
+            chatMemoryCache.get(appId, key -> createWarmUpChatMemory(appId, CHAT_MEMORY_MAX_MESSAGES));
+            switch (serviceType) {
+                case VUE_CREATE_SERVICE_TYPE -> vueCreateServiceCache.get(appId, key -> createAiVueProjectCreateService(appId));
+                case VUE_MODIFY_SERVICE_TYPE -> vueModifyServiceCache.get(appId, key -> createAiVueProjectModifyService(appId));
+                default -> {
+                    CodeGenTypeEnum codeGenType = CodeGenTypeEnum.getEnumByValue(serviceType);
+                    if (codeGenType == null) {
+                        return false;
+                    }
+                    serviceCache.get(buildCacheKey(appId, codeGenType), key -> createAiCodeGeneratorService(appId, codeGenType));
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("AI 服务预热失败，activity: {}, error: {}", activity, e.getMessage());
+            return false;
+        }
+    }
+
 
     /**
      * 创建新的 AI 服务实例
@@ -117,7 +239,7 @@ public class AiCodeGeneratorServiceFactory {
      * @return
      */
     private AiCodeGeneratorService createAiCodeGeneratorService(long appId, CodeGenTypeEnum codeGenType) {
-        MessageWindowChatMemory chatMemory = buildChatMemory(appId, 20);
+        MessageWindowChatMemory chatMemory = buildChatMemory(appId, CHAT_MEMORY_MAX_MESSAGES);
         // 根据代码生成类型选择不同的模型配置
         return switch (codeGenType) {
             case VUE_PROJECT -> {
@@ -160,7 +282,7 @@ public class AiCodeGeneratorServiceFactory {
      * 创建 Vue 工程创建服务实例（最小工具集）
      */
     private AiVueProjectCreateService createAiVueProjectCreateService(long appId) {
-        MessageWindowChatMemory chatMemory = buildChatMemory(appId, 20);
+        MessageWindowChatMemory chatMemory = buildChatMemory(appId, CHAT_MEMORY_MAX_MESSAGES);
         Object[] tools = requireTools("writeFile");
         // 使用多例模式的 StreamingChatModel 解决并发问题
         StreamingChatModel reasoningStreamingChatModel = SpringContextUtil.getBean("reasoningStreamingChatModelPrototype", StreamingChatModel.class);
@@ -178,7 +300,7 @@ public class AiCodeGeneratorServiceFactory {
      * 创建 Vue 工程修改服务实例（按修改场景提供工具集合）
      */
     private AiVueProjectModifyService createAiVueProjectModifyService(long appId) {
-        MessageWindowChatMemory chatMemory = buildChatMemory(appId, 20);
+        MessageWindowChatMemory chatMemory = buildChatMemory(appId, CHAT_MEMORY_MAX_MESSAGES);
         Object[] tools = requireTools("readDir", "readFile", "modifyFile", "writeFile", "deleteFile");
         // 使用多例模式的 StreamingChatModel 解决并发问题
         StreamingChatModel reasoningStreamingChatModel = SpringContextUtil.getBean("reasoningStreamingChatModelPrototype", StreamingChatModel.class);
@@ -201,16 +323,45 @@ public class AiCodeGeneratorServiceFactory {
     }
 
     /**
-     * 根据 appId 构建独立的对话记忆，并从数据库加载历史
+     * 刷新对话记忆的访问时间（服务缓存命中时不会创建记忆，需要单独续期）
+     */
+    private void touchChatMemory(long appId) {
+        chatMemoryCache.getIfPresent(appId);
+    }
+
+    /**
+     * 获取 appId 对应的对话记忆（带缓存，各类服务共享）
      */
     private MessageWindowChatMemory buildChatMemory(long appId, int maxMessages) {
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory.builder()
+        return chatMemoryCache.get(appId, key -> createChatMemory(appId, maxMessages));
+    }
+
+    /**
+     * 创建对话记忆，并从数据库批量加载历史到 Redis
+     */
+    private MessageWindowChatMemory createChatMemory(long appId, int maxMessages) {
+        chatHistoryService.loadChatHistoryToMemory(appId, redisChatMemoryStore, maxMessages);
+        return MessageWindowChatMemory.builder()
+                .id(appId)
+                .chatMemoryStore(redisChatMemoryStore)
+                .maxMessages(maxMessages)
+                .build();
+    }
+
+    /**
+     * 创建预热用的对话记忆
+     * 预热时没有待处理的用户消息，且其他节点可能正在使用同一份 Redis 记忆：
+     * 记忆已存在时直接复用，不存在时从最新一条消息开始加载
+     */
+    private MessageWindowChatMemory createWarmUpChatMemory(long appId, int maxMessages) {
+        if (redisChatMemoryStore.getMessages(appId).isEmpty()) {
+            chatHistoryService.loadChatHistoryToMemory(appId, redisChatMemoryStore, maxMessages, false);
+        }
+        return MessageWindowChatMemory.builder()
                 .id(appId)
                 .chatMemoryStore(redisChatMemoryStore)
                 .maxMessages(maxMessages)
                 .build();
-        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, maxMessages);
-        return chatMemory;
     }
 
     /**
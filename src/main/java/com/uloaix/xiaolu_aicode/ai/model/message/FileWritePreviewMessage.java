@@ -0,0 +1,54 @@
+package com.uloaix.xiaolu_aicode.ai.model.message;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * 文件写入预览消息（writeFile 参数流式到达时的实时预览）
+ * type 为 FILE_WRITE_START / FILE_WRITE_DELTA / FILE_WRITE_END 之一，同一工具调用的相邻增量可以合并推送
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class FileWritePreviewMessage extends StreamMessage implements MergeableMessage {
+
+    /**
+     * 工具调用 ID
+     */
+    private String id;
+
+    private String relativeFilePath;
+
+    /**
+     * 文件内容增量（仅 FILE_WRITE_DELTA）
+     */
+    private String delta;
+
+    public FileWritePreviewMessage(StreamMessageTypeEnum type, String id, String relativeFilePath, String delta) {
+        super(type.getValue());
+        this.id = id;
+        this.relativeFilePath = relativeFilePath;
+        this.delta = delta;
+    }
+
+    @Override
+    public MergeableMessage mergeWith(MergeableMessage next) {
+        String deltaType = StreamMessageTypeEnum.FILE_WRITE_DELTA.getValue();
+        if (next instanceof FileWritePreviewMessage nextMessage
+                && deltaType.equals(getType()) && deltaType.equals(nextMessage.getType())
+                && Objects.equals(id, nextMessage.getId())) {
+            return new FileWritePreviewMessage(StreamMessageTypeEnum.FILE_WRITE_DELTA, id, relativeFilePath,
+                    Objects.toString(delta, "") + Objects.toString(nextMessage.getDelta(), ""));
+        }
+        return null;
+    }
+
+    @Override
+    public int mergeLength() {
+        return delta == null ? 0 : delta.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,21 @@
+package com.uloaix.xiaolu_aicode.ai.model.message;
+
+/**
+ * 可合并的流式消息
+ * 输出合并器把相邻且可合并的同名事件拼接为一个事件推送，避免逐片段产生大量小帧
+ */
+public interface MergeableMessage {
+
+    /**
+     * 与紧随其后的消息合并
+     *
+     * @param next 后一条消息
+     * @return 合并后的消息，不能合并时返回 null
+     */
+    MergeableMessage mergeWith(MergeableMessage next);
+
+    /**
+     * 可合并内容的 UTF-8 字节数（与文本一样计入合并缓冲的字节上限）
+     */
+    int mergeLength();
+}
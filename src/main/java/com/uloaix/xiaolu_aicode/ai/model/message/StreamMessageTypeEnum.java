@@ -10,7 +10,11 @@ public enum StreamMessageTypeEnum {
 
     AI_RESPONSE("ai_response", "AI响应"),
     TOOL_REQUEST("tool_request", "工具请求"),
-    TOOL_EXECUTED("tool_executed", "工具执行结果");
+    TOOL_EXECUTED("tool_executed", "工具执行结果"),
+    TOOL_ARGUMENTS_DELTA("tool_arguments_delta", "工具参数增量"),
+    FILE_WRITE_START("file_write_start", "文件写入开始"),
+    FILE_WRITE_DELTA("file_write_delta", "文件内容增量"),
+    FILE_WRITE_END("file_write_end", "文件写入结束");
 
     private final String value;
     private final String text;
@@ -0,0 +1,27 @@
+package com.uloaix.xiaolu_aicode.ai.model.message;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 工具参数增量消息（流式返回的参数片段，用于前端实时预览）
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class ToolArgumentsDeltaMessage extends StreamMessage {
+
+    private String id;
+
+    private String name;
+
+    private String delta;
+
+    public ToolArgumentsDeltaMessage(String id, String name, String delta) {
+        super(StreamMessageTypeEnum.TOOL_ARGUMENTS_DELTA.getValue());
+        this.id = id;
+        this.name = name;
+        this.delta = delta;
+    }
+}
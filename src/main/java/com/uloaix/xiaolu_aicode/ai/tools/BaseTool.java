@@ -60,10 +60,22 @@ public abstract class BaseTool {
     }
 
     /**
-     * 生成工具执行结果格式（保存到数据库）
+     * 生成工具执行结果格式（展示给用户，默认也作为对话历史保存）
      *
      * @param arguments 工具执行参数
      * @return 格式化的工具执行结果
      */
     public abstract String generateToolExecutedResult(JSONObject arguments);
+
+    /**
+     * 生成写入对话历史的工具执行结果（默认与展示内容一致）
+     * 内容较大的工具可以覆盖此方法，只保存引用以减小历史记录体积
+     *
+     * @param arguments 工具执行参数
+     * @param version   工具执行时的版本号
+     * @return 写入对话历史的内容
+     */
+    public String generateToolHistoryResult(JSONObject arguments, int version) {
+        return generateToolExecutedResult(arguments);
+    }
 }
@@ -2,6 +2,7 @@ package com.uloaix.xiaolu_aicode.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.service.AppVersionService;
 import dev.langchain4j.agent.tool.P;
@@ -26,6 +27,9 @@ public class FileDeleteTool extends BaseTool{
     @jakarta.annotation.Resource
     private AppVersionService appVersionService;
 
+    @jakarta.annotation.Resource
+    private CodeBlobStoreManager codeBlobStoreManager;
+
     @Tool("删除指定路径的文件")
     public String deleteFile(
             @P("文件的相对路径")
@@ -59,6 +63,11 @@ public class FileDeleteTool extends BaseTool{
                 return "错误：不允许删除重要文件 - " + fileName;
             }
             Files.delete(path);
+            // 更新版本清单
+            if (!Paths.get(normalizedPath).isAbsolute()) {
+                codeBlobStoreManager.recordFileDelete(CodeGenTypeEnum.VUE_PROJECT, appId,
+                        appVersionService.resolveActiveVersion(appId), normalizedPath);
+            }
             log.info("成功删除文件: {}", path.toAbsolutePath());
             return "文件删除成功: " + normalizedPath;
         } catch (IOException e) {
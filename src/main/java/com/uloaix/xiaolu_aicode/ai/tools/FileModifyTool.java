@@ -2,8 +2,10 @@ package com.uloaix.xiaolu_aicode.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.service.AppVersionService;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -11,10 +13,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 
 /**
  * 文件修改工具
@@ -27,6 +29,9 @@ public class FileModifyTool extends BaseTool {
     @jakarta.annotation.Resource
     private AppVersionService appVersionService;
 
+    @jakarta.annotation.Resource
+    private CodeBlobStoreManager codeBlobStoreManager;
+
     @Tool("修改文件内容，用新内容替换指定的旧内容")
     public String modifyFile(
             @P("文件的相对路径")
@@ -63,7 +68,14 @@ public class FileModifyTool extends BaseTool {
             if (originalContent.equals(modifiedContent)) {
                 return "信息：替换后文件内容未发生变化 - " + normalizedPath;
             }
-            Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            // 原子替换，避免改到与旧版本共享的硬链接文件
+            byte[] bytes = modifiedContent.getBytes(StandardCharsets.UTF_8);
+            VersionFileUtils.writeAtomically(path, bytes);
+            // 更新版本清单
+            if (!Paths.get(normalizedPath).isAbsolute()) {
+                codeBlobStoreManager.recordFileWrite(CodeGenTypeEnum.VUE_PROJECT, appId,
+                        appVersionService.resolveActiveVersion(appId), normalizedPath, bytes, path);
+            }
             log.info("成功修改文件: {}", path.toAbsolutePath());
             return "文件修改成功: " + normalizedPath;
         } catch (IOException e) {
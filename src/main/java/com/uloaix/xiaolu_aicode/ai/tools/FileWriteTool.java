@@ -5,8 +5,11 @@ import cn.hutool.json.JSONObject;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.service.AppVersionService;
+import com.uloaix.xiaolu_aicode.utils.ChatHistoryFileRefUtils;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -14,10 +17,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,6 +39,9 @@ public class FileWriteTool extends BaseTool {
     @jakarta.annotation.Resource
     private AppVersionService appVersionService;
 
+    @jakarta.annotation.Resource
+    private CodeBlobStoreManager codeBlobStoreManager;
+
     /**
      * 每个 appId 对应一组已写入的文件路径（标准化后）。
      * <p>
@@ -91,15 +96,13 @@ public class FileWriteTool extends BaseTool {
                 Path projectRoot = Paths.get(projectRootDir);
                 path = projectRoot.resolve(normalizedPath);
             }
-            // 创建父目录（如果不存在）
-            Path parentDir = path.getParent();
-            if (parentDir != null) {
-                Files.createDirectories(parentDir);
+            // 写入文件内容（原子替换，避免改到与旧版本共享的硬链接文件）
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            VersionFileUtils.writeAtomically(path, bytes);
+            // 更新版本清单
+            if (!Paths.get(normalizedPath).isAbsolute()) {
+                codeBlobStoreManager.recordFileWrite(CodeGenTypeEnum.VUE_PROJECT, appId, activeVersion, normalizedPath, bytes, path);
             }
-            // 写入文件内容
-            Files.write(path, content.getBytes(),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
 
             // 记录已写入文件
             writtenFiles.add(normalizedPath);
@@ -187,7 +190,18 @@ public class FileWriteTool extends BaseTool {
                 normalizedPath.isEmpty() ? relativeFilePath : normalizedPath,
                 suffix, content);
     }
-}
-
-
 
+    /**
+     * 对话历史中只保存文件引用（版本 + 路径 + sha256），查询历史时再从版本目录展开
+     */
+    @Override
+    public String generateToolHistoryResult(JSONObject arguments, int version) {
+        String relativeFilePath = arguments.getStr("relativeFilePath");
+        String normalizedPath = normalizeRelativePath(relativeFilePath);
+        if (normalizedPath.isEmpty() || hasWindowsDrivePrefix(normalizedPath)) {
+            return generateToolExecutedResult(arguments);
+        }
+        return String.format("[⚒️工具调用] %s %s\n%s", getDisplayName(), normalizedPath,
+                ChatHistoryFileRefUtils.buildFileRef(version, normalizedPath, arguments.getStr("content")));
+    }
+}
@@ -0,0 +1,30 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI 服务预热配置
+ * 启动时为最近活跃的应用提前构建 AI 服务实例并加载对话记忆，降低发版/扩容后的首 token 延迟
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.service.warm-up")
+@Data
+public class AiServiceWarmUpConfig {
+
+    /**
+     * 是否开启预热
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预热最近多少分钟内活跃的应用
+     */
+    private int recentMinutes = 30;
+
+    /**
+     * 单次预热的最大服务数
+     */
+    private int maxServices = 100;
+}
@@ -0,0 +1,39 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 应用版本清理（GC）配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app-version.gc")
+@Data
+public class AppVersionGcConfig {
+
+    /**
+     * 是否开启定时清理
+     */
+    private boolean enabled = true;
+
+    /**
+     * 执行时间（cron），默认每天凌晨 3 点 30 分，避开截图清理
+     */
+    private String cron = "0 30 3 * * ?";
+
+    /**
+     * 每个应用保留最近的已完成版本数（当前版本、已部署版本额外保留）
+     */
+    private int keepReadyVersions = 10;
+
+    /**
+     * 失败版本保留时长（小时）
+     */
+    private int failedRetentionHours = 24;
+
+    /**
+     * 每批处理的应用数
+     */
+    private int batchSize = 200;
+}
@@ -0,0 +1,25 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Vue 项目构建调度配置
+ * 限制同时运行的 npm install / vite build 进程数，其余任务按优先级排队
+ */
+@Configuration
+@ConfigurationProperties(prefix = "vue-build.scheduler")
+@Data
+public class BuildSchedulerConfig {
+
+    /**
+     * 最大并发构建数（默认 CPU 核数的一半，至少 1）
+     */
+    private int maxConcurrentBuilds = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * 同步等待构建结果的最长时间（秒，含排队时间），超时后放弃等待并取消仍在排队的任务
+     */
+    private int waitTimeoutSeconds = 600;
+}
@@ -0,0 +1,39 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话历史异步批量写入配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.write-behind")
+@Data
+public class ChatHistoryWriteBehindConfig {
+
+    /**
+     * 是否开启异步批量写入（关闭后退回同步 save）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 队列容量，队列满时调用方线程同步写入
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 单次批量插入的最大条数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 最长刷新间隔（毫秒）
+     */
+    private long flushIntervalMillis = 200;
+
+    /**
+     * 数据库写入失败或停机未能落库时的兜底文件（JSON Lines），启动时自动回放
+     */
+    private String fallbackFile = System.getProperty("user.dir") + "/tmp/chat_history_fallback.jsonl";
+}
@@ -0,0 +1,25 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 应用部署发布配置
+ * 每次部署生成独立的 release 目录，准备完成后原子切换 code_deploy/{deployKey} 符号链接
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app-deploy.release")
+@Data
+public class DeployReleaseConfig {
+
+    /**
+     * 是否开启原子发布（关闭后直接覆盖复制到部署目录；Windows 需要创建符号链接的权限）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个应用保留的 release 数（含当前 release）
+     */
+    private int keepReleases = 3;
+}
@@ -0,0 +1,35 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 部署站点热点资源缓存配置
+ * 小文件（含预压缩副本）缓存在堆外内存中，命中时不访问磁盘
+ */
+@Configuration
+@ConfigurationProperties(prefix = "static-serve.hot-cache")
+@Data
+public class HotAssetCacheConfig {
+
+    /**
+     * 是否开启缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存总大小上限（MB，堆外内存，需小于 -XX:MaxDirectMemorySize）
+     */
+    private long maxSizeMb = 128;
+
+    /**
+     * 单个文件大小上限（KB），更大的文件直接走 sendfile
+     */
+    private long maxEntryKb = 256;
+
+    /**
+     * 多少分钟未访问后过期
+     */
+    private int expireAfterAccessMinutes = 30;
+}
@@ -0,0 +1,30 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Vue 项目 node_modules 共享缓存配置
+ * 按依赖指纹（package.json 依赖声明 + lock 文件）缓存安装结果，新项目直接链接，跳过 npm install
+ */
+@Configuration
+@ConfigurationProperties(prefix = "vue-build.node-modules-cache")
+@Data
+public class NodeModulesCacheConfig {
+
+    /**
+     * 是否开启缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存总大小上限（MB），超出后按最近使用时间淘汰
+     */
+    private long maxSizeMb = 4096;
+
+    /**
+     * 最近多少分钟内使用过的缓存不淘汰（避免删除正在构建的项目依赖）
+     */
+    private int minIdleMinutes = 60;
+}
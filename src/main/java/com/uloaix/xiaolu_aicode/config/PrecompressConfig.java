@@ -0,0 +1,35 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 部署产物预压缩配置
+ * 部署时为文本类资源生成 .gz / .br 副本，访问时按 Accept-Encoding 直接发送，不做实时压缩
+ */
+@Configuration
+@ConfigurationProperties(prefix = "static-serve.precompress")
+@Data
+public class PrecompressConfig {
+
+    /**
+     * 是否开启预压缩
+     */
+    private boolean enabled = true;
+
+    /**
+     * 小于该大小（字节）的文件不压缩
+     */
+    private long minSizeBytes = 1024;
+
+    /**
+     * brotli 命令（JDK 没有 brotli 编码器，未安装时只生成 .gz）
+     */
+    private String brotliCommand = "brotli";
+
+    /**
+     * 压缩线程数（默认 CPU 核数）
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+}
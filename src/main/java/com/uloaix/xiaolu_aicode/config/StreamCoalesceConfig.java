@@ -0,0 +1,30 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SSE 流式输出合并配置
+ * 将上游的细碎 token 按字节数或时间窗口合并后再推送，减少每个连接的 SSE 事件数与写次数
+ */
+@Configuration
+@ConfigurationProperties(prefix = "stream.coalesce")
+@Data
+public class StreamCoalesceConfig {
+
+    /**
+     * 是否开启合并
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓冲达到该字节数（UTF-8）立即推送
+     */
+    private int maxBytes = 16 * 1024;
+
+    /**
+     * 缓冲中第一段内容最多等待的毫秒数
+     */
+    private long maxWaitMillis = 50;
+}
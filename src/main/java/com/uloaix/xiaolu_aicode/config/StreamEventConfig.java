@@ -0,0 +1,24 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 流式事件配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "stream.event")
+@Data
+public class StreamEventConfig {
+
+    /**
+     * 是否以独立 SSE 事件推送工具参数增量（用于文件实时预览），默认关闭
+     */
+    private boolean toolArgumentsDelta = false;
+
+    /**
+     * 是否在 writeFile 参数流式到达时推送文件预览事件（file-write-start / file-write-delta / file-write-end）
+     */
+    private boolean fileWritePreview = false;
+}
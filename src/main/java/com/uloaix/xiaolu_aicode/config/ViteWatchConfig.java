@@ -0,0 +1,35 @@
+package com.uloaix.xiaolu_aicode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Vue 项目增量构建配置
+ * 每个应用保留一个常驻的 vite build --watch 进程，小修改只重新构建受影响的模块
+ */
+@Configuration
+@ConfigurationProperties(prefix = "vue-build.watch")
+@Data
+public class ViteWatchConfig {
+
+    /**
+     * 是否开启增量构建（关闭后始终全量构建）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时常驻的 watch 进程数上限，超出后停止最久未使用的
+     */
+    private int maxWatchers = 4;
+
+    /**
+     * watch 进程空闲多少分钟后停止
+     */
+    private int idleMinutes = 15;
+
+    /**
+     * 单次增量构建超时时间（秒），超时后回退全量构建
+     */
+    private int rebuildTimeoutSeconds = 60;
+}
@@ -1,6 +1,7 @@
 package com.uloaix.xiaolu_aicode.controller;
 
 import java.io.File;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -108,9 +109,16 @@ public class AppController {
                     // 调用服务生成代码（流式）
                     return appService.chatToGenCode(appId, message, loginUser);
                 })
-                // 转换为 ServerSentEvent 格式
-                .map(chunk -> {
-                    Map<String, String> wrapper = Map.of("d", chunk);
+                // 转换为 ServerSentEvent 格式（唯一的序列化位置）
+                .map(output -> {
+                    if (!output.isText()) {
+                        // 具名事件（如工具参数增量），数据直接序列化
+                        return ServerSentEvent.<String>builder()
+                                .event(output.event())
+                                .data(JSONUtil.toJsonStr(output.data()))
+                                .build();
+                    }
+                    Map<String, Object> wrapper = Map.of("d", output.data());
                     String jsonData = JSONUtil.toJsonStr(wrapper);
                     return ServerSentEvent.<String>builder()
                             .data(jsonData)
@@ -405,6 +413,28 @@ public class AppController {
         return ResultUtils.success(diffVO);
     }
 
+    /**
+     * 单个文件的行级差异（unified diff 纯文本流，用于内联差异超过大小上限的大文件）
+     */
+    @GetMapping("/version/diff/file")
+    public void diffVersionFile(@RequestParam Long appId,
+                                @RequestParam Integer fromVersion,
+                                @RequestParam Integer toVersion,
+                                @RequestParam String path,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
+        ThrowUtils.throwIf(fromVersion == null || fromVersion <= 0, ErrorCode.PARAMS_ERROR, "fromVersion无效");
+        ThrowUtils.throwIf(toVersion == null || toVersion <= 0, ErrorCode.PARAMS_ERROR, "toVersion无效");
+        User loginUser = userService.getLoginUser(request);
+        App app = appService.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        boolean noAuth = !app.getUserId().equals(loginUser.getId())
+                && !UserConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
+        ThrowUtils.throwIf(noAuth, ErrorCode.NO_AUTH_ERROR, "无权限查看版本对比");
+        appVersionService.writeFileDiff(appId, fromVersion, toVersion, path, response);
+    }
+
     /**
      * 管理员删除应用
      *
@@ -1,14 +1,12 @@
 package com.uloaix.xiaolu_aicode.controller;
 
-import com.uloaix.xiaolu_aicode.constant.AppConstant;
-import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
-import com.uloaix.xiaolu_aicode.service.AppVersionService;
+import com.uloaix.xiaolu_aicode.core.staticserve.StaticFileServer;
+import com.uloaix.xiaolu_aicode.core.staticserve.StaticRouteTable;
+import com.uloaix.xiaolu_aicode.core.staticserve.StaticRouteTable.Route;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,29 +14,43 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.File;
+import java.io.IOException;
 
+@Slf4j
 @RestController
 @RequestMapping("/static")
 public class StaticResourceController {
 
-    // 应用生成根目录（用于浏览）
-    private static final String PREVIEW_ROOT_DIR = AppConstant.CODE_OUTPUT_ROOT_DIR;
+    @jakarta.annotation.Resource
+    private StaticRouteTable staticRouteTable;
+
+    @jakarta.annotation.Resource
+    private CodeBlobStoreManager codeBlobStoreManager;
 
     @jakarta.annotation.Resource
-    private AppVersionService appVersionService;
+    private StaticFileServer staticFileServer;
 
     /**
      * 提供静态资源访问，支持目录重定向
      * 访问格式：http://localhost:8123/api/static/{deployKey}[/{fileName}]
+     * <p>
+     * 只负责把访问路径解析为磁盘文件，响应头、条件请求、Range 与文件发送交给 {@link StaticFileServer}
      */
     @GetMapping("/{deployKey}/**")
-    public ResponseEntity<Resource> serveStaticResource(
+    public void serveStaticResource(
             @PathVariable String deployKey,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) {
         try {
-            PreviewInfo previewInfo = parsePreviewInfo(deployKey);
-            boolean isPreviewKey = previewInfo.isPreview;
-            boolean isVuePreview = isPreviewKey && previewInfo.codeGenType == CodeGenTypeEnum.VUE_PROJECT;
+            // 以 . 开头的是部署目录内部文件（release、临时链接），不对外提供
+            if (deployKey.startsWith(".")) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            // 标识 → 站点根目录（路由表缓存，同一页面的资源请求不再查询版本服务）
+            Route route = staticRouteTable.resolve(deployKey, parseVersionParam(request.getParameter("version")));
+            boolean isPreviewKey = route.preview();
+            boolean isVuePreview = route.isVuePreview();
             // 获取资源路径
             String resourcePath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
             resourcePath = resourcePath.substring(("/static/" + deployKey).length());
@@ -52,47 +64,50 @@ public class StaticResourceController {
             }
             // 如果是目录访问（不带斜杠），重定向到带斜杠的URL
             if (resourcePath.isEmpty()) {
-                HttpHeaders headers = new HttpHeaders();
-                headers.add("Location", request.getRequestURI() + "/");
-                return new ResponseEntity<>(headers, HttpStatus.MOVED_PERMANENTLY);
+                response.setStatus(HttpServletResponse.SC_MOVED_PERMANENTLY);
+                response.setHeader("Location", request.getRequestURI() + "/");
+                return;
             }
             // 默认返回 index.html
-            if (resourcePath.equals("/")) {
-                resourcePath = "/index.html";
+            if (resourcePath.endsWith("/")) {
+                resourcePath = resourcePath + "index.html";
             }
-            // 构建基础目录，Vue 项目预览需要使用 dist 目录
-            String baseDirPath;
-            if (isPreviewKey) {
-                Integer versionParam = parseVersionParam(request.getParameter("version"));
-                Integer resolvedVersion = versionParam != null ? versionParam : previewInfo.version;
-                if (resolvedVersion == null && previewInfo.appId != null) {
-                    resolvedVersion = appVersionService.resolveActiveVersion(previewInfo.appId);
-                }
-                if (previewInfo.codeGenType != null && previewInfo.appId != null && resolvedVersion != null && resolvedVersion > 0) {
-                    baseDirPath = appVersionService.buildVersionDir(previewInfo.codeGenType, previewInfo.appId, resolvedVersion);
-                } else {
-                    baseDirPath = PREVIEW_ROOT_DIR + "/" + deployKey;
-                }
-                if (isVuePreview) {
-                    baseDirPath = baseDirPath + "/dist";
-                }
-            } else {
-                baseDirPath = AppConstant.CODE_DEPLOY_ROOT_DIR + "/" + deployKey;
+            // 拒绝跳出站点目录的路径
+            if (resourcePath.contains("..") || resourcePath.contains("\\")) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            // 已提交版本的非 Vue 预览直接读取内容存储中的 blob
+            String baseDirPath = route.baseDir();
+            File blobFile = null;
+            if (route.isBlobBacked()) {
+                blobFile = codeBlobStoreManager.resolveFile(route.codeGenType(), route.appId(), route.version(), resourcePath);
             }
             // 构建文件路径
             String filePath = baseDirPath + resourcePath;
-            File file = new File(filePath);
+            File file = blobFile != null ? blobFile : new File(filePath);
+            // 部署站点：热点小文件从内存发送，并按 Accept-Encoding 选择预压缩副本
+            if (!isPreviewKey) {
+                if (!staticFileServer.serveDeployed(deployKey, file, resourcePath, route.isViteBuild(), request, response)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                }
+                return;
+            }
             // 检查文件是否存在
-            if (!file.exists()) {
-                return ResponseEntity.notFound().build();
+            if (!file.isFile()) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
             }
-            // 返回文件资源
-            Resource resource = new FileSystemResource(file);
-            return ResponseEntity.ok()
-                    .header("Content-Type", getContentTypeWithCharset(filePath))
-                    .body(resource);
+            staticFileServer.serve(file, resourcePath, route.isViteBuild(), request, response);
+        } catch (IOException e) {
+            // 客户端中途断开连接
+            log.debug("静态资源发送中断: {}", e.getMessage());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            log.error("静态资源访问异常: {}", e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
         }
     }
 
@@ -106,55 +121,4 @@ public class StaticResourceController {
             return null;
         }
     }
-
-    private PreviewInfo parsePreviewInfo(String deployKey) {
-        PreviewInfo info = new PreviewInfo();
-        for (CodeGenTypeEnum typeEnum : CodeGenTypeEnum.values()) {
-            String prefix = typeEnum.getValue() + "_";
-            if (!deployKey.startsWith(prefix)) {
-                continue;
-            }
-            info.isPreview = true;
-            info.codeGenType = typeEnum;
-            String rest = deployKey.substring(prefix.length());
-            String appIdText = rest;
-            Integer version = null;
-            if (rest.contains("_v")) {
-                String[] parts = rest.split("_v", 2);
-                appIdText = parts[0];
-                if (parts.length > 1) {
-                    try {
-                        version = Integer.parseInt(parts[1]);
-                    } catch (Exception ignored) {
-                    }
-                }
-            }
-            try {
-                info.appId = Long.parseLong(appIdText);
-            } catch (Exception ignored) {
-            }
-            info.version = version;
-            return info;
-        }
-        return info;
-    }
-
-    private static class PreviewInfo {
-        private boolean isPreview;
-        private CodeGenTypeEnum codeGenType;
-        private Long appId;
-        private Integer version;
-    }
-
-    /**
-     * 根据文件扩展名返回带字符编码的 Content-Type
-     */
-    private String getContentTypeWithCharset(String filePath) {
-        if (filePath.endsWith(".html")) return "text/html; charset=UTF-8";
-        if (filePath.endsWith(".css")) return "text/css; charset=UTF-8";
-        if (filePath.endsWith(".js")) return "application/javascript; charset=UTF-8";
-        if (filePath.endsWith(".png")) return "image/png";
-        if (filePath.endsWith(".jpg")) return "image/jpeg";
-        return "application/octet-stream";
-    }
 }
@@ -1,6 +1,6 @@
 package com.uloaix.xiaolu_aicode.core;
 
-import cn.hutool.json.JSONUtil;
+import cn.hutool.core.util.StrUtil;
 import com.uloaix.xiaolu_aicode.ai.AiCodeGeneratorService;
 import com.uloaix.xiaolu_aicode.ai.AiCodeGeneratorServiceFactory;
 import com.uloaix.xiaolu_aicode.ai.AiVueProjectCreateService;
@@ -8,16 +8,21 @@ import com.uloaix.xiaolu_aicode.ai.AiVueProjectModifyService;
 import com.uloaix.xiaolu_aicode.ai.model.HtmlCodeResult;
 import com.uloaix.xiaolu_aicode.ai.model.MultiFileCodeResult;
 import com.uloaix.xiaolu_aicode.ai.model.message.AiResponseMessage;
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessage;
+import com.uloaix.xiaolu_aicode.ai.model.message.ToolArgumentsDeltaMessage;
 import com.uloaix.xiaolu_aicode.ai.model.message.ToolExecutedMessage;
 import com.uloaix.xiaolu_aicode.ai.model.message.ToolRequestMessage;
+import com.uloaix.xiaolu_aicode.config.StreamEventConfig;
 import com.uloaix.xiaolu_aicode.constant.AppConstant;
-import com.uloaix.xiaolu_aicode.core.parser.CodeParserExecutor;
+import com.uloaix.xiaolu_aicode.core.parser.CodeBlock;
+import com.uloaix.xiaolu_aicode.core.parser.StreamingCodeParser;
+import com.uloaix.xiaolu_aicode.core.parser.WriteFilePreviewParser;
 import com.uloaix.xiaolu_aicode.core.saver.CodeFileSaverExecutor;
+import com.uloaix.xiaolu_aicode.core.saver.CodeFileSaverTemplate;
 import com.uloaix.xiaolu_aicode.exception.BusinessException;
 import com.uloaix.xiaolu_aicode.exception.ErrorCode;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.service.AppVersionService;
-import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.chat.response.PartialToolCall;
 import dev.langchain4j.service.TokenStream;
@@ -31,7 +36,12 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * AI 代码生成外观类，组合生成和保存功能，用于统一入口
@@ -45,6 +55,9 @@ public class AiCodeGeneratorFacade {
     @Resource
     private AppVersionService appVersionService;
 
+    @Resource
+    private StreamEventConfig streamEventConfig;
+
     /**
      * 统一入口：根据类型生成并保存代码
      *
@@ -87,8 +100,9 @@ public class AiCodeGeneratorFacade {
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
      * @param appId           应用id
+     * @return 类型化的流式消息（仅在 SSE 出口处序列化）
      */
-    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+    public Flux<StreamMessage> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
@@ -136,42 +150,48 @@ public class AiCodeGeneratorFacade {
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
-     *
-     * @param tokenStream TokenStream 对象
-     * @return Flux<String> 流式响应
-     */
-    /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
      *
      * @param tokenStream TokenStream 对象
-     * @return Flux<String> 流式响应
+     * @return Flux<StreamMessage> 流式响应
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream) {
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream) {
         return Flux.create(sink -> {
             AtomicBoolean terminated = new AtomicBoolean(false);
+            // 已发出请求消息的工具调用 ID
+            Set<String> seenToolIds = new HashSet<>();
+            // writeFile 调用的参数预览解析器（按工具调用 ID）
+            Map<String, WriteFilePreviewParser> previewParsers = new HashMap<>();
             tokenStream.onPartialResponse((String partialResponse) -> {
                         AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
                         if (!sink.isCancelled() && !terminated.get()) {
-                            sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                            sink.next(aiResponseMessage);
                         }
                     })
                     // LangChain4j 1.11.x：工具调用以 PartialToolCall 形式流式返回
+                    // 同一个工具调用只在第一个片段时发出 ToolRequestMessage，后续片段按需作为参数增量推送
                     .onPartialToolCall((PartialToolCall partialToolCall) -> {
-                        ToolExecutionRequest toolExecutionRequest = ToolExecutionRequest.builder()
-                                .id(partialToolCall.id())
-                                .name(partialToolCall.name())
-                                .arguments(partialToolCall.partialArguments())
-                                .build();
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        if (!sink.isCancelled() && !terminated.get()) {
-                            sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                        if (sink.isCancelled() || terminated.get()) {
+                            return;
+                        }
+                        String toolId = partialToolCall.id();
+                        if (toolId != null && seenToolIds.add(toolId)) {
+                            sink.next(new ToolRequestMessage(toolId, partialToolCall.name(), partialToolCall.partialArguments()));
+                        }
+                        if (streamEventConfig.isToolArgumentsDelta() && StrUtil.isNotEmpty(partialToolCall.partialArguments())) {
+                            sink.next(new ToolArgumentsDeltaMessage(toolId, partialToolCall.name(), partialToolCall.partialArguments()));
+                        }
+                        if (streamEventConfig.isFileWritePreview() && toolId != null
+                                && WriteFilePreviewParser.TOOL_NAME.equals(partialToolCall.name())) {
+                            previewParsers.computeIfAbsent(toolId, id -> new WriteFilePreviewParser(id, sink::next))
+                                    .feed(partialToolCall.partialArguments());
                         }
                     })
                     .onToolExecuted((ToolExecution toolExecution) -> {
+                        previewParsers.remove(toolExecution.request().id());
                         ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
                         if (!sink.isCancelled() && !terminated.get()) {
-                            sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
+                            sink.next(toolExecutedMessage);
                         }
                     })
                     .onCompleteResponse((ChatResponse response) -> {
@@ -194,29 +214,51 @@ public class AiCodeGeneratorFacade {
 
     /**
      * 通用流式代码处理方法
+     * <p>
+     * 代码块闭合即落盘：边接收边用 StreamingCodeParser 解析，每个文件在其结束围栏到达时立即写入版本目录，
+     * 不再缓存完整输出。仅在尚未出现代码块时保留原始输出，作为 HTML 模式无代码块时的兜底。
      *
      * @param codeStream  代码流
      * @param codeGenType 代码生成类型
      * @param appId       应用id
-     * @return 流式响应
+     * @return 流式响应（文本片段包装为 AiResponseMessage）
      */
-    private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
-        StringBuilder codeBuilder = new StringBuilder();
+    private Flux<StreamMessage> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
+        // 已落盘的文件名（同一文件只取第一个代码块，与正则解析器行为一致）
+        Set<String> savedFileNames = new HashSet<>();
+        // 来自未标注语言代码块的文件，之后出现标注了语言的代码块时以后者为准
+        Set<String> unlabeledFileNames = new HashSet<>();
+        AtomicReference<String> saveError = new AtomicReference<>();
+        StreamingCodeParser codeParser = new StreamingCodeParser(
+                codeBlock -> saveCodeBlock(codeBlock, codeGenType, appId, savedFileNames, unlabeledFileNames, saveError));
+        StringBuilder fallbackBuilder = new StringBuilder();
         return codeStream.doOnNext(chunk -> {
-            // 实时收集代码片段
-            codeBuilder.append(chunk);
+            // 实时解析代码片段
+            codeParser.feed(chunk);
+            if (!codeParser.hasSeenFence()) {
+                fallbackBuilder.append(chunk);
+            } else if (!fallbackBuilder.isEmpty()) {
+                fallbackBuilder.setLength(0);
+                fallbackBuilder.trimToSize();
+            }
         }).doOnError(error -> {
             int version = appVersionService.resolveActiveVersion(appId);
             appVersionService.markVersionFailed(appId, version, error.getMessage());
         }).doOnComplete(() -> {
-            // 流式返回完成后保存代码
+            codeParser.finish();
             try {
-                String completeCode = codeBuilder.toString();
-                // 使用执行器解析代码
-                Object parsedResult = CodeParserExecutor.execute(completeCode, codeGenType);
-                // 使用执行器保存代码
-                File savedDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenType, appId);
-                log.info("保存成功，路径为：" + savedDir.getAbsolutePath());
+                if (saveError.get() != null) {
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, saveError.get());
+                }
+                if (!savedFileNames.contains(CodeFileSaverTemplate.HTML_FILE_NAME)) {
+                    // 没有 HTML 代码块：HTML 模式将整个内容作为 HTML，其它模式视为生成失败
+                    String fallbackCode = fallbackBuilder.toString();
+                    if (codeGenType != CodeGenTypeEnum.HTML || StrUtil.isBlank(fallbackCode)) {
+                        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "HTML代码内容不能为空");
+                    }
+                    CodeFileSaverExecutor.executeBlockSaver(new CodeBlock("html", fallbackCode), codeGenType, appId);
+                }
+                log.info("保存成功，appId: {}, 文件: {}", appId, savedFileNames);
                 int version = appVersionService.resolveActiveVersion(appId);
                 appVersionService.markVersionReady(appId, version);
             } catch (Exception e) {
@@ -224,7 +266,34 @@ public class AiCodeGeneratorFacade {
                 int version = appVersionService.resolveActiveVersion(appId);
                 appVersionService.markVersionFailed(appId, version, e.getMessage());
             }
-        });
+        }).<StreamMessage>map(AiResponseMessage::new);
+    }
+
+    /**
+     * 保存闭合的代码块（写入失败不打断流式输出，完成时统一标记版本失败）
+     */
+    private void saveCodeBlock(CodeBlock codeBlock, CodeGenTypeEnum codeGenType, Long appId,
+                               Set<String> savedFileNames, Set<String> unlabeledFileNames, AtomicReference<String> saveError) {
+        String fileName = CodeFileSaverExecutor.resolveFileName(codeBlock.language(), codeGenType);
+        boolean unlabeled = codeBlock.language().isEmpty();
+        if (fileName == null || (savedFileNames.contains(fileName) && (unlabeled || !unlabeledFileNames.contains(fileName)))) {
+            return;
+        }
+        try {
+            String savedFileName = CodeFileSaverExecutor.executeBlockSaver(codeBlock, codeGenType, appId);
+            if (savedFileName != null) {
+                savedFileNames.add(savedFileName);
+                if (unlabeled) {
+                    unlabeledFileNames.add(savedFileName);
+                } else {
+                    unlabeledFileNames.remove(savedFileName);
+                }
+                log.info("代码块已落盘，appId: {}, 文件: {}", appId, savedFileName);
+            }
+        } catch (Exception e) {
+            log.error("代码块保存失败，appId: {}, 文件: {}", appId, fileName, e);
+            saveError.compareAndSet(null, "保存文件失败: " + fileName + ", " + e.getMessage());
+        }
     }
 
 
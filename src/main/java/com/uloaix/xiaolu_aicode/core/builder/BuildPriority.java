@@ -0,0 +1,27 @@
+package com.uloaix.xiaolu_aicode.core.builder;
+
+/**
+ * 构建优先级（数值越小越先执行）
+ */
+public enum BuildPriority {
+
+    /**
+     * 用户正在等待的构建：对话生成、工作流、部署
+     */
+    INTERACTIVE(0),
+
+    /**
+     * 后台触发的构建：版本对比、预览截图
+     */
+    BACKGROUND(10);
+
+    private final int order;
+
+    BuildPriority(int order) {
+        this.order = order;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,191 @@
+package com.uloaix.xiaolu_aicode.core.builder;
+
+import com.uloaix.xiaolu_aicode.config.BuildSchedulerConfig;
+import com.uloaix.xiaolu_aicode.core.progress.BuildProgressService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Vue 项目构建调度器
+ * <p>
+ * 固定数量的工作线程从优先级队列取任务，同时运行的 npm / vite 进程数不超过配置上限；
+ * 同优先级按提交顺序执行，排队中的任务通过 {@link BuildProgressService#markWaiting(String, int)} 推送排队位置。
+ */
+@Slf4j
+@Component
+public class BuildTaskScheduler {
+
+    private final PriorityBlockingQueue<QueuedBuild> queue = new PriorityBlockingQueue<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicInteger runningCount = new AtomicInteger();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    @Resource
+    private BuildSchedulerConfig buildSchedulerConfig;
+
+    @Resource
+    private BuildProgressService buildProgressService;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 排队中的构建任务
+     */
+    private static final class QueuedBuild implements Comparable<QueuedBuild> {
+
+        private final String projectPath;
+
+        private final int order;
+
+        private final long sequence;
+
+        private final Supplier<Boolean> build;
+
+        private final CompletableFuture<Boolean> future;
+
+        private QueuedBuild(String projectPath, int order, long sequence, Supplier<Boolean> build, CompletableFuture<Boolean> future) {
+            this.projectPath = projectPath;
+            this.order = order;
+            this.sequence = sequence;
+            this.build = build;
+            this.future = future;
+        }
+
+        @Override
+        public int compareTo(QueuedBuild other) {
+            int result = Integer.compare(order, other.order);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int workerCount = Math.max(1, buildSchedulerConfig.getMaxConcurrentBuilds());
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("vue-build-worker-" + i).start(this::workLoop));
+        }
+        Gauge.builder("vue.build.queue.size", queue, PriorityBlockingQueue::size)
+                .description("排队中的构建任务数")
+                .register(meterRegistry);
+        Gauge.builder("vue.build.running", runningCount, AtomicInteger::get)
+                .description("正在执行的构建任务数")
+                .register(meterRegistry);
+        log.info("构建调度器已启动，最大并发构建数: {}", workerCount);
+    }
+
+    /**
+     * 提交构建任务
+     *
+     * @param projectPath 项目路径
+     * @param priority    优先级
+     * @param build       构建过程
+     * @return 构建结果
+     */
+    public CompletableFuture<Boolean> submit(String projectPath, BuildPriority priority, Supplier<Boolean> build) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        if (!running) {
+            // 异步完成，调用方可能正在 ConcurrentHashMap.compute 中登记回调
+            return future.completeAsync(() -> false);
+        }
+        queue.offer(new QueuedBuild(projectPath, priority.getOrder(), sequence.incrementAndGet(), build, future));
+        publishQueuePositions();
+        return future;
+    }
+
+    /**
+     * 提升排队中任务的优先级（如后台构建尚未开始，用户又在等待同一项目）
+     */
+    public void promote(String projectPath, BuildPriority priority) {
+        for (QueuedBuild task : queue) {
+            if (task.projectPath.equals(projectPath) && task.order > priority.getOrder() && queue.remove(task)) {
+                queue.offer(new QueuedBuild(task.projectPath, priority.getOrder(), task.sequence, task.build, task.future));
+                publishQueuePositions();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取消仍在排队的任务（已开始的构建不受影响，由命令自身的超时兜底）
+     * <p>
+     * 只取消优先级未被提升过的任务：被提升说明有其它调用方正在等待同一个构建结果。
+     *
+     * @param future   提交任务时返回的结果
+     * @param priority 提交时的优先级
+     * @return 是否取消了任务
+     */
+    public boolean cancelQueued(CompletableFuture<Boolean> future, BuildPriority priority) {
+        for (QueuedBuild task : queue) {
+            if (task.future == future && task.order == priority.getOrder() && queue.remove(task)) {
+                task.future.complete(false);
+                publishQueuePositions();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void workLoop() {
+        while (running) {
+            QueuedBuild task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            publishQueuePositions();
+            runningCount.incrementAndGet();
+            try {
+                task.future.complete(task.build.get());
+            } catch (Throwable e) {
+                task.future.completeExceptionally(e);
+            } finally {
+                runningCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 按当前队列顺序推送排队位置（从 1 开始）
+     * <p>
+     * 加锁保证工作线程取出任务后、开始构建前，其它线程基于旧快照推送的 waiting 事件已经发完，不会覆盖 running 状态。
+     */
+    private synchronized void publishQueuePositions() {
+        QueuedBuild[] waiting = queue.toArray(new QueuedBuild[0]);
+        Arrays.sort(waiting);
+        for (int i = 0; i < waiting.length; i++) {
+            buildProgressService.markWaiting(waiting[i].projectPath, i + 1);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        QueuedBuild task;
+        while ((task = queue.poll()) != null) {
+            task.future.complete(false);
+        }
+    }
+}
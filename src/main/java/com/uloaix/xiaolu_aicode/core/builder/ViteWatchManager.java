@@ -0,0 +1,530 @@
+package com.uloaix.xiaolu_aicode.core.builder;
+
+import com.uloaix.xiaolu_aicode.config.ViteWatchConfig;
+import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.core.progress.BuildOutputParser;
+import com.uloaix.xiaolu_aicode.core.progress.BuildProgressService;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
+import com.uloaix.xiaolu_aicode.manager.NodeModulesCacheManager;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Vite 增量构建管理器
+ * <p>
+ * 每个版本都在新目录中构建，无法直接在版本目录上常驻 watch。因此每个应用维护一个工作区
+ * （{@code .vite_workspaces/<应用目录名>}），其中运行常驻的 {@code vite build --watch}：
+ * <ul>
+ *     <li>构建时把版本目录的源码以硬链接同步到工作区（只替换变化的文件），rollup 只重新构建受影响的模块</li>
+ *     <li>构建完成后把工作区 dist 复制到版本目录（工作区 dist 会被下次构建原地改写，不能共享硬链接）</li>
+ *     <li>依赖、vite 配置、public 等 watch 感知不到的文件变化时重启 watch 进程</li>
+ *     <li>构建错误、进程退出或超时都返回 false，由调用方回退全量构建</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ViteWatchManager {
+
+    private static final Path WORKSPACE_ROOT = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, ".vite_workspaces");
+
+    /**
+     * 同步后等待 rebuild 开始的时间：超时仍未开始说明变化的文件不在模块图中，现有 dist 仍然有效
+     */
+    private static final long REBUILD_START_WAIT_MILLIS = 3000;
+
+    /**
+     * watch 进程首次构建（相当于全量构建）的超时时间
+     */
+    private static final long INITIAL_BUILD_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(180);
+
+    /**
+     * 周期结束后的静默时间：一次同步多个文件时 watch 可能连续触发多个周期，静默期内没有新周期开始才算构建完成
+     */
+    private static final long REBUILD_SETTLE_MILLIS = 500;
+
+    private static final Pattern VERSION_DIR_PATTERN = Pattern.compile("v\\d+");
+
+    /**
+     * watch 模式下构建失败的输出（出错的周期不会输出 “built in”）：
+     * 插件前缀（[vite:xxx]）的行也可能是警告，不作为失败依据；构建错误会紧跟一行 “file: 出错文件”
+     */
+    private static final Pattern ERROR_LINE_PATTERN = Pattern.compile(
+            "^((?i:error during build|✗?\\s*build failed)|file: \\S|[A-Z]\\w*Error: )");
+
+    /**
+     * 变化后需要重启 watch 的文件（watch 不会重新加载配置，也不监听 public 目录）
+     */
+    private static final Pattern RESTART_PATH_PATTERN = Pattern.compile(
+            "^(package\\.json|package-lock\\.json|pnpm-lock\\.yaml|yarn\\.lock|vite\\.config\\.[cm]?[jt]s|tsconfig[^/]*\\.json|\\.env[^/]*|public/.*)$");
+
+    private final ConcurrentMap<String, Workspace> workspaceMap = new ConcurrentHashMap<>();
+
+    @Resource
+    private ViteWatchConfig viteWatchConfig;
+
+    @Resource
+    private BuildProgressService buildProgressService;
+
+    @Resource
+    private NodeModulesCacheManager nodeModulesCacheManager;
+
+    /**
+     * 应用工作区
+     */
+    private static final class Workspace {
+
+        private final String key;
+
+        private final Path dir;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile Process process;
+
+        /**
+         * 链接到工作区的 node_modules 真实路径（变化时重启 watch）
+         */
+        private volatile Path nodeModules;
+
+        /**
+         * watch 周期计数与最后一个周期的结果（由输出读取线程在对象监视器内更新并通知）
+         */
+        private long started;
+
+        private long finished;
+
+        private boolean lastCycleOk;
+
+        /**
+         * 最后一个周期结束的时间
+         */
+        private long lastFinishedAt;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * 正在等待本工作区构建结果的项目（转发进度与日志）
+         */
+        private volatile String activeProjectPath;
+
+        private volatile BuildOutputParser parser;
+
+        private Workspace(String key, Path dir) {
+            this.key = key;
+            this.dir = dir;
+        }
+
+        private boolean isRunning() {
+            Process current = process;
+            return current != null && current.isAlive();
+        }
+    }
+
+    /**
+     * 源码同步结果
+     *
+     * @param changed         新增 / 修改 / 删除的文件数
+     * @param bundleChanged   是否有可能进入打包的文件（src 与 index.html）变化
+     * @param restartRequired 是否需要重启 watch
+     */
+    private record SyncResult(int changed, boolean bundleChanged, boolean restartRequired) {
+    }
+
+    /**
+     * 增量构建项目，结果写入项目目录的 dist
+     *
+     * @param projectDir 项目目录（node_modules 已就绪）
+     * @return 是否成功，false 时调用方应回退全量构建
+     */
+    public boolean buildIncrementally(File projectDir) {
+        if (!viteWatchConfig.isEnabled()) {
+            return false;
+        }
+        Path project = projectDir.toPath().toAbsolutePath().normalize();
+        Path nodeModules;
+        try {
+            nodeModules = project.resolve("node_modules").toRealPath();
+        } catch (IOException e) {
+            return false;
+        }
+        String projectPath = project.toString();
+        Workspace workspace = workspaceMap.computeIfAbsent(resolveWorkspaceKey(project),
+                key -> new Workspace(key, WORKSPACE_ROOT.resolve(key)));
+        workspace.lock.lock();
+        try {
+            if (workspaceMap.get(workspace.key) != workspace) {
+                // 等待锁期间工作区已被空闲清理
+                return false;
+            }
+            workspace.lastUsed = System.currentTimeMillis();
+            workspace.activeProjectPath = projectPath;
+            workspace.parser = BuildOutputParser.forBuild();
+            // 在同步前读取周期数：同步过程中触发的周期也要等待
+            long startedBefore;
+            synchronized (workspace) {
+                startedBefore = workspace.started;
+            }
+            SyncResult syncResult = syncSources(project, workspace.dir);
+            boolean success;
+            if (syncResult.restartRequired() || !nodeModules.equals(workspace.nodeModules) || !workspace.isRunning()) {
+                buildProgressService.updateProgress(projectPath, BuildOutputParser.BUILD_START, "build", "启动增量构建进程");
+                stopProcess(workspace);
+                evictIfNeeded(workspace);
+                linkNodeModules(workspace.dir, nodeModules);
+                workspace.nodeModules = nodeModules;
+                startProcess(workspace);
+                success = awaitCycle(workspace, 0, INITIAL_BUILD_TIMEOUT_MILLIS, false);
+            } else {
+                buildProgressService.updateProgress(projectPath, BuildOutputParser.BUILD_START, "build",
+                        "增量构建中，变更文件 " + syncResult.changed() + " 个");
+                success = !syncResult.bundleChanged()
+                        ? awaitCycle(workspace, startedBefore, 0, true)
+                        : awaitCycle(workspace, startedBefore, TimeUnit.SECONDS.toMillis(viteWatchConfig.getRebuildTimeoutSeconds()), true);
+            }
+            if (!success) {
+                log.warn("增量构建未成功，回退全量构建: {}", projectPath);
+                return false;
+            }
+            copyDist(workspace.dir, project);
+            log.info("增量构建完成: {}, 变更文件 {} 个", projectPath, syncResult.changed());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("增量构建失败，回退全量构建: {}, err={}", projectPath, e.getMessage());
+            return false;
+        } finally {
+            workspace.activeProjectPath = null;
+            workspace.parser = null;
+            workspace.lastUsed = System.currentTimeMillis();
+            workspace.lock.unlock();
+        }
+    }
+
+    /**
+     * 等待同步之后开始的 watch 周期全部结束，且静默期内没有新周期开始
+     *
+     * @param startedBefore  同步前已开始的周期数
+     * @param timeoutMillis  超时时间
+     * @param allowNoRebuild 一直没有触发 rebuild 时，是否沿用最后一个周期的结果
+     * @return 最后一个周期是否成功
+     */
+    private boolean awaitCycle(Workspace workspace, long startedBefore, long timeoutMillis, boolean allowNoRebuild)
+            throws InterruptedException {
+        long now = System.currentTimeMillis();
+        long deadline = now + timeoutMillis;
+        long startDeadline = now + Math.min(timeoutMillis, REBUILD_START_WAIT_MILLIS);
+        synchronized (workspace) {
+            while (true) {
+                long current = System.currentTimeMillis();
+                boolean cyclesDone = workspace.started > startedBefore && workspace.finished >= workspace.started;
+                long settleUntil = workspace.lastFinishedAt + REBUILD_SETTLE_MILLIS;
+                if (cyclesDone && current >= settleUntil) {
+                    return workspace.lastCycleOk;
+                }
+                boolean noRebuild = workspace.started == startedBefore;
+                if (allowNoRebuild && noRebuild && current >= startDeadline) {
+                    return workspace.finished > 0 && workspace.finished == workspace.started && workspace.lastCycleOk;
+                }
+                if (!workspace.isRunning()) {
+                    log.warn("vite watch 进程已退出: {}", workspace.key);
+                    return false;
+                }
+                if (current >= deadline) {
+                    if (cyclesDone) {
+                        // 静默期未满但已到超时时间，沿用最后一个周期的结果
+                        return workspace.lastCycleOk;
+                    }
+                    log.warn("增量构建超时: {}", workspace.key);
+                    return false;
+                }
+                long waitUntil = cyclesDone ? Math.min(settleUntil, deadline)
+                        : allowNoRebuild && noRebuild ? startDeadline : deadline;
+                workspace.wait(Math.max(1, waitUntil - current));
+            }
+        }
+    }
+
+    /**
+     * 把项目源码同步到工作区：变化的文件原子替换为硬链接，工作区多余的文件删除
+     */
+    private SyncResult syncSources(Path project, Path workspaceDir) throws IOException {
+        Files.createDirectories(workspaceDir);
+        Set<String> sourcePaths = new HashSet<>();
+        int changed = 0;
+        boolean bundleChanged = false;
+        boolean restartRequired = false;
+        for (Path source : listSourceFiles(project)) {
+            String relativePath = project.relativize(source).toString().replace('\\', '/');
+            sourcePaths.add(relativePath);
+            Path target = workspaceDir.resolve(relativePath);
+            if (Files.exists(target, LinkOption.NOFOLLOW_LINKS) && Files.isSameFile(source, target)) {
+                continue;
+            }
+            VersionFileUtils.linkAtomically(source, target);
+            changed++;
+            bundleChanged |= isBundlePath(relativePath);
+            restartRequired |= RESTART_PATH_PATTERN.matcher(relativePath).matches();
+        }
+        for (Path stale : listSourceFiles(workspaceDir)) {
+            String relativePath = workspaceDir.relativize(stale).toString().replace('\\', '/');
+            if (!sourcePaths.contains(relativePath)) {
+                Files.deleteIfExists(stale);
+                changed++;
+                bundleChanged |= isBundlePath(relativePath);
+                restartRequired |= RESTART_PATH_PATTERN.matcher(relativePath).matches();
+            }
+        }
+        return new SyncResult(changed, bundleChanged, restartRequired);
+    }
+
+    private static boolean isBundlePath(String relativePath) {
+        return relativePath.startsWith("src/") || relativePath.equals("index.html");
+    }
+
+    /**
+     * 列出参与构建的源码文件（与版本清单的范围一致，不含 node_modules、dist 等）
+     */
+    private List<Path> listSourceFiles(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                String relativePath = root.relativize(dir).toString().replace('\\', '/');
+                if (!relativePath.isEmpty() && !CodeBlobStoreManager.isTrackedPath(relativePath + "/")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String relativePath = root.relativize(file).toString().replace('\\', '/');
+                if (attrs.isRegularFile() && CodeBlobStoreManager.isTrackedPath(relativePath)) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    /**
+     * 工作区 node_modules 指向项目依赖的真实目录
+     */
+    private void linkNodeModules(Path workspaceDir, Path nodeModules) throws IOException {
+        Path link = workspaceDir.resolve("node_modules");
+        if (Files.isSymbolicLink(link)) {
+            Files.delete(link);
+        } else if (Files.exists(link, LinkOption.NOFOLLOW_LINKS)) {
+            VersionFileUtils.deleteDirectory(link);
+        }
+        Files.createSymbolicLink(link, nodeModules);
+    }
+
+    private void startProcess(Workspace workspace) throws IOException {
+        String npx = System.getProperty("os.name").toLowerCase().contains("windows") ? "npx.cmd" : "npx";
+        ProcessBuilder processBuilder = new ProcessBuilder(npx, "vite", "build", "--watch")
+                .directory(workspace.dir.toFile())
+                .redirectErrorStream(true);
+        processBuilder.environment().put("NO_COLOR", "1");
+        processBuilder.environment().put("FORCE_COLOR", "0");
+        synchronized (workspace) {
+            workspace.started = 0;
+            workspace.finished = 0;
+            workspace.lastCycleOk = false;
+        }
+        Process process = processBuilder.start();
+        workspace.process = process;
+        Thread.ofVirtual().name("vite-watch-output-" + workspace.key).start(() -> consumeOutput(workspace, process));
+    }
+
+    /**
+     * 读取 watch 进程输出，维护周期计数，并把当前构建的输出转发给进度服务
+     */
+    private void consumeOutput(Workspace workspace, Process process) {
+        try (BufferedReader reader = process.inputReader(StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String cleanLine = BuildOutputParser.stripAnsi(line).trim();
+                synchronized (workspace) {
+                    if (workspace.process != process) {
+                        // 已被新进程替换
+                        continue;
+                    }
+                    if (cleanLine.startsWith("build started")) {
+                        workspace.started++;
+                        workspace.notifyAll();
+                    } else if (cleanLine.contains("built in") && workspace.started > workspace.finished) {
+                        workspace.finished++;
+                        workspace.lastCycleOk = true;
+                        workspace.lastFinishedAt = System.currentTimeMillis();
+                        workspace.notifyAll();
+                    } else if (ERROR_LINE_PATTERN.matcher(cleanLine).find() && workspace.started > workspace.finished) {
+                        workspace.finished++;
+                        workspace.lastCycleOk = false;
+                        workspace.lastFinishedAt = System.currentTimeMillis();
+                        workspace.notifyAll();
+                    }
+                }
+                String projectPath = workspace.activeProjectPath;
+                BuildOutputParser parser = workspace.parser;
+                if (projectPath != null && !cleanLine.isEmpty()) {
+                    buildProgressService.appendLog(projectPath, cleanLine);
+                    BuildOutputParser.Progress progress = parser == null ? null : parser.parse(cleanLine);
+                    if (progress != null) {
+                        buildProgressService.updateProgress(projectPath, progress.percent(), progress.step(), progress.message());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("vite watch 输出读取结束: {}, err={}", workspace.key, e.getMessage());
+        } finally {
+            synchronized (workspace) {
+                workspace.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 工作区 dist 复制到项目目录：先写临时目录再重命名，预览不会读到一半的产物
+     */
+    private void copyDist(Path workspaceDir, Path project) throws IOException {
+        Path source = workspaceDir.resolve("dist");
+        if (!Files.isDirectory(source)) {
+            throw new IOException("工作区 dist 不存在");
+        }
+        Path temp = project.resolve(".dist-" + UUID.randomUUID());
+        Path target = project.resolve("dist");
+        try {
+            VersionFileUtils.copyDirectory(source, temp);
+            if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+                VersionFileUtils.deleteDirectory(target);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (Files.exists(temp, LinkOption.NOFOLLOW_LINKS)) {
+                VersionFileUtils.deleteDirectory(temp);
+            }
+        }
+    }
+
+    /**
+     * 工作区按应用划分：版本目录（.../vue_project_1/v3）取上级目录名，否则取自身目录名
+     */
+    private String resolveWorkspaceKey(Path project) {
+        Path fileName = project.getFileName();
+        Path parent = project.getParent();
+        if (parent != null && VERSION_DIR_PATTERN.matcher(fileName.toString()).matches()) {
+            return parent.getFileName().toString();
+        }
+        return fileName.toString();
+    }
+
+    /**
+     * 常驻进程数达到上限时停止最久未使用的（跳过正在构建的）
+     */
+    private void evictIfNeeded(Workspace current) {
+        List<Workspace> running = workspaceMap.values().stream()
+                .filter(workspace -> workspace != current && workspace.isRunning())
+                .sorted(Comparator.comparingLong(workspace -> workspace.lastUsed))
+                .toList();
+        int excess = running.size() + 1 - Math.max(1, viteWatchConfig.getMaxWatchers());
+        for (Workspace workspace : running) {
+            if (excess <= 0) {
+                break;
+            }
+            if (workspace.lock.tryLock()) {
+                try {
+                    log.info("常驻 vite watch 进程数达到上限，停止: {}", workspace.key);
+                    stopProcess(workspace);
+                    excess--;
+                } finally {
+                    workspace.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 定时停止空闲的 watch 进程并删除工作区；仍在运行的进程刷新所链接 node_modules 缓存的使用时间，避免被淘汰
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void stopIdleWatchers() {
+        long idleDeadline = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(viteWatchConfig.getIdleMinutes());
+        for (Workspace workspace : workspaceMap.values()) {
+            if (workspace.lastUsed > idleDeadline) {
+                if (workspace.isRunning()) {
+                    nodeModulesCacheManager.touch(workspace.nodeModules);
+                }
+                continue;
+            }
+            if (!workspace.lock.tryLock()) {
+                continue;
+            }
+            try {
+                log.info("vite watch 进程空闲，停止并清理工作区: {}", workspace.key);
+                stopProcess(workspace);
+                workspaceMap.remove(workspace.key, workspace);
+                VersionFileUtils.deleteDirectory(workspace.dir);
+            } catch (IOException e) {
+                log.warn("清理 vite 工作区失败: {}, err={}", workspace.key, e.getMessage());
+            } finally {
+                workspace.lock.unlock();
+            }
+        }
+    }
+
+    private void stopProcess(Workspace workspace) {
+        Process process = workspace.process;
+        if (process == null) {
+            return;
+        }
+        workspace.process = null;
+        // npx 会派生 node 子进程，需要一并结束
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        workspaceMap.values().forEach(this::stopProcess);
+    }
+}
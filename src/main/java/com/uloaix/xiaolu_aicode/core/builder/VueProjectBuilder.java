@@ -1,35 +1,52 @@
 package com.uloaix.xiaolu_aicode.core.builder;
 
-import cn.hutool.core.util.RuntimeUtil;
+import com.uloaix.xiaolu_aicode.config.BuildSchedulerConfig;
+import com.uloaix.xiaolu_aicode.core.progress.BuildOutputParser;
 import com.uloaix.xiaolu_aicode.core.progress.BuildProgressService;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
+import com.uloaix.xiaolu_aicode.manager.NodeModulesCacheManager;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
-import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Component
 public class VueProjectBuilder {
-    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
     private final ConcurrentMap<String, CompletableFuture<Boolean>> buildTaskMap = new ConcurrentHashMap<>();
 
     @Resource
     private BuildProgressService buildProgressService;
 
+    @Resource
+    private BuildTaskScheduler buildTaskScheduler;
+
+    @Resource
+    private BuildSchedulerConfig buildSchedulerConfig;
+
+    @Resource
+    private ViteWatchManager viteWatchManager;
+
+    @Resource
+    private NodeModulesCacheManager nodeModulesCacheManager;
+
     /**
      * 构建异步项目，不阻塞主流程
      * @param projectPath 项目路径
      */
     public void buildProjectAsync(String projectPath) {
-        submitBuildTask(projectPath)
+        submitBuildTask(projectPath, BuildPriority.INTERACTIVE)
                 .exceptionally(error -> {
                     log.error("异步构建Vue项目时发生异常：{}", error.getMessage(), error);
                     return false;
@@ -43,8 +60,32 @@ public class VueProjectBuilder {
      * @return 是否构建成功
      */
     public boolean buildProject(String projectPath) {
+        return buildProject(projectPath, BuildPriority.INTERACTIVE);
+    }
+
+    /**
+     * 按指定优先级构建 Vue 项目（排队等待空闲构建槽位，最多等待配置的超时时间）
+     *
+     * @param projectPath 项目根目录路径
+     * @param priority    构建优先级
+     * @return 是否构建成功（等待超时视为失败）
+     */
+    public boolean buildProject(String projectPath, BuildPriority priority) {
+        CompletableFuture<Boolean> future = submitBuildTask(projectPath, priority);
         try {
-            return submitBuildTask(projectPath).get();
+            return future.get(buildSchedulerConfig.getWaitTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            boolean cancelled = buildTaskScheduler.cancelQueued(future, priority);
+            if (cancelled) {
+                buildProgressService.completeFailed(projectPath, "排队等待超时，构建已取消");
+            }
+            log.warn("等待Vue项目构建超时（{}秒），{}: {}", buildSchedulerConfig.getWaitTimeoutSeconds(),
+                    cancelled ? "已取消排队中的任务" : "构建仍在后台进行", projectPath);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("等待Vue项目构建被中断: {}", projectPath);
+            return false;
         } catch (Exception e) {
             log.error("构建Vue项目失败：{}", e.getMessage(), e);
             return false;
@@ -52,15 +93,16 @@ public class VueProjectBuilder {
     }
 
     /**
-     * 提交构建任务（同一项目路径复用任务）
+     * 提交构建任务（同一项目路径复用任务，仍在排队时按更高的优先级提升）
      */
-    private CompletableFuture<Boolean> submitBuildTask(String projectPath) {
+    private CompletableFuture<Boolean> submitBuildTask(String projectPath, BuildPriority priority) {
         return buildTaskMap.compute(projectPath, (path, existing) -> {
             if (existing != null && !existing.isDone()) {
                 log.info("检测到项目正在构建，复用任务: {}", path);
+                buildTaskScheduler.promote(path, priority);
                 return existing;
             }
-            CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> doBuildProject(path), executor);
+            CompletableFuture<Boolean> future = buildTaskScheduler.submit(path, priority, () -> doBuildProject(path, priority));
             future.whenComplete((result, error) -> buildTaskMap.remove(path, future));
             return future;
         });
@@ -68,8 +110,11 @@ public class VueProjectBuilder {
 
     /**
      * 实际执行构建流程
+     * <p>
+     * 交互构建优先走常驻 watch 的增量构建，失败时回退全量 npm run build；
+     * 后台构建（多为旧版本）直接全量构建，避免把应用工作区来回切换到旧版本。
      */
-    private boolean doBuildProject(String projectPath) {
+    private boolean doBuildProject(String projectPath, BuildPriority priority) {
         buildProgressService.startBuild(projectPath);
         try {
             File projectDir = new File(projectPath);
@@ -86,22 +131,26 @@ public class VueProjectBuilder {
                 return false;
             }
             log.info("开始构建 Vue 项目: {}", projectPath);
+            detachInPlaceWrittenFiles(projectDir);
             // 执行 npm install
-            buildProgressService.updateProgress(projectPath, 15, "install", "安装依赖中");
+            buildProgressService.updateProgress(projectPath, BuildOutputParser.INSTALL_START, "install", "安装依赖中");
             if (!executeNpmInstall(projectDir)) {
                 log.error("npm install 执行失败");
                 buildProgressService.completeFailed(projectPath, "安装依赖失败");
                 return false;
             }
-            // 执行 npm run build
-            buildProgressService.updateProgress(projectPath, 70, "build", "项目构建中");
-            if (!executeNpmBuild(projectDir)) {
+            // 增量构建（vite build --watch），未成功时执行全量 npm run build
+            boolean incremental = priority == BuildPriority.INTERACTIVE && viteWatchManager.buildIncrementally(projectDir);
+            if (!incremental) {
+                buildProgressService.updateProgress(projectPath, BuildOutputParser.BUILD_START, "build", "项目构建中");
+            }
+            if (!incremental && !executeNpmBuild(projectDir)) {
                 log.error("npm run build 执行失败");
                 buildProgressService.completeFailed(projectPath, "项目构建失败");
                 return false;
             }
             // 验证 dist 目录是否生成
-            buildProgressService.updateProgress(projectPath, 90, "verify", "校验构建产物");
+            buildProgressService.updateProgress(projectPath, BuildOutputParser.BUILD_END, "verify", "校验构建产物");
             File distDir = new File(projectDir, "dist");
             if (!distDir.exists()) {
                 log.error("构建完成但 dist 目录未生成: {}", distDir.getAbsolutePath());
@@ -115,10 +164,23 @@ public class VueProjectBuilder {
             log.error("构建 Vue 项目异常: {}", e.getMessage(), e);
             buildProgressService.completeFailed(projectPath, "构建异常，请重试");
             return false;
+        } finally {
+            buildProgressService.finishBuild(projectPath);
         }
     }
 
 
+    /**
+     * npm 会原地改写 package.json 与锁文件：这些文件可能是其它版本或内容存储 blob 的硬链接，改写前先断开
+     */
+    private void detachInPlaceWrittenFiles(File projectDir) throws IOException {
+        for (String fileName : CodeBlobStoreManager.IN_PLACE_WRITTEN_FILES) {
+            if (VersionFileUtils.detachHardLink(projectDir.toPath().resolve(fileName))) {
+                log.debug("已断开共享文件的硬链接: {}/{}", projectDir, fileName);
+            }
+        }
+    }
+
     /**
      * 执行 npm install 命令
      */
@@ -126,15 +188,37 @@ public class VueProjectBuilder {
         // 优化策略1：如果 node_modules 已存在，直接跳过安装
         // 这对于“修改提示词重新生成”的场景非常有效，能将时间从几分钟缩短到几秒
         File nodeModules = new File(projectDir, "node_modules");
-        if (nodeModules.exists() && nodeModules.isDirectory()) {
+        String fingerprint = nodeModulesCacheManager.fingerprint(projectDir);
+        if (Files.isSymbolicLink(nodeModules.toPath())) {
+            // 链接到共享缓存：依赖未变化且缓存仍在时直接复用，否则删除链接后重新链接或安装
+            if (nodeModules.isDirectory() && (fingerprint == null || nodeModulesCacheManager.isLinkedTo(fingerprint, projectDir))) {
+                log.info("检测到 node_modules 已链接共享缓存，跳过 npm install");
+                return true;
+            }
+            try {
+                Files.delete(nodeModules.toPath());
+            } catch (Exception e) {
+                log.warn("删除失效的 node_modules 链接失败: {}", e.getMessage());
+            }
+        } else if (nodeModules.exists() && nodeModules.isDirectory()) {
             log.info("检测到 node_modules 已存在，跳过 npm install 以加速构建");
             return true;
         }
 
+        // 优化策略2：依赖指纹相同的项目直接复用共享缓存中的 node_modules，冷构建只剩 npm run build
+        if (fingerprint != null && nodeModulesCacheManager.linkCached(fingerprint, projectDir)) {
+            return true;
+        }
+
         log.info("执行 npm install...");
-        // 优化策略2：建议在服务器安装 pnpm，并将此处改为 pnpm install，速度可提升 3-5 倍
-        String command = String.format("%s install", buildCommand("npm"));
-        return executeCommand(projectDir, command, 300); // 5分钟超时
+        // 优化策略3：建议在服务器安装 pnpm，并将此处改为 pnpm install，速度可提升 3-5 倍
+        // --loglevel=http 逐条输出依赖请求，用于推算安装进度；跳过 audit / fund 的额外网络请求
+        String command = String.format("%s install --no-audit --no-fund --loglevel=http", buildCommand("npm"));
+        boolean installed = executeCommand(projectDir, command, 300, BuildOutputParser.forInstall()); // 5分钟超时
+        if (installed && fingerprint != null) {
+            nodeModulesCacheManager.store(fingerprint, projectDir);
+        }
+        return installed;
     }
 
     /**
@@ -143,7 +227,7 @@ public class VueProjectBuilder {
     private boolean executeNpmBuild(File projectDir) {
         log.info("执行 npm run build...");
         String command = String.format("%s run build", buildCommand("npm"));
-        return executeCommand(projectDir, command, 180); // 3分钟超时
+        return executeCommand(projectDir, command, 180, BuildOutputParser.forBuild()); // 3分钟超时
     }
 
     /**
@@ -171,44 +255,77 @@ public class VueProjectBuilder {
 
     /**
      * 执行命令
+     * <p>
+     * 标准输出与错误输出合并后由虚拟线程逐行读取：解析为构建进度，并保留日志尾部用于失败诊断；
+     * 及时读取也避免子进程因管道缓冲区写满而阻塞。
      *
      * @param workingDir     工作目录
      * @param command        命令字符串
      * @param timeoutSeconds 超时时间（秒）
+     * @param parser         输出解析器
      * @return 是否执行成功
      */
-    private boolean executeCommand(File workingDir, String command, int timeoutSeconds) {
+    private boolean executeCommand(File workingDir, String command, int timeoutSeconds, BuildOutputParser parser) {
+        String projectPath = workingDir.getAbsolutePath();
         try {
-            log.info("在目录 {} 中执行命令: {}", workingDir.getAbsolutePath(), command);
-            Process process = RuntimeUtil.exec(
-                    null,
-                    workingDir,
-                    command.split("\\s+") // 命令分割为数组
-            );
+            log.info("在目录 {} 中执行命令: {}", projectPath, command);
+            ProcessBuilder processBuilder = new ProcessBuilder(command.split("\\s+")) // 命令分割为数组
+                    .directory(workingDir)
+                    .redirectErrorStream(true);
+            processBuilder.environment().put("NO_COLOR", "1");
+            processBuilder.environment().put("FORCE_COLOR", "0");
+            Process process = processBuilder.start();
+            Thread outputReader = Thread.ofVirtual().name("vue-build-output").start(() -> consumeOutput(process, projectPath, parser));
             // 等待进程完成，设置超时
             boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
             if (!finished) {
                 log.error("命令执行超时（{}秒），强制终止进程", timeoutSeconds);
+                buildProgressService.appendLog(projectPath, String.format("命令执行超时（%d秒）: %s", timeoutSeconds, command));
                 process.destroyForcibly();
                 return false;
             }
+            // 等待剩余输出读完（子进程派生的进程可能仍持有管道，最多等待 5 秒）
+            outputReader.join(TimeUnit.SECONDS.toMillis(5));
             int exitCode = process.exitValue();
             if (exitCode == 0) {
                 log.info("命令执行成功: {}", command);
                 return true;
             } else {
-                log.error("命令执行失败，退出码: {}", exitCode);
+                log.error("命令执行失败，退出码: {}, 输出尾部:\n{}", exitCode,
+                        String.join("\n", buildProgressService.getLogTail(projectPath)));
                 return false;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("执行命令被中断: {}", command);
+            return false;
         } catch (Exception e) {
             log.error("执行命令失败: {}, 错误信息: {}", command, e.getMessage());
+            buildProgressService.appendLog(projectPath, "执行命令失败: " + e.getMessage());
             return false;
         }
     }
 
-    @PreDestroy
-    public void destroy() {
-        executor.shutdown();
+    /**
+     * 逐行读取进程输出
+     */
+    private void consumeOutput(Process process, String projectPath, BuildOutputParser parser) {
+        try (BufferedReader reader = process.inputReader(StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String cleanLine = BuildOutputParser.stripAnsi(line);
+                if (!BuildOutputParser.isNoise(cleanLine)) {
+                    buildProgressService.appendLog(projectPath, cleanLine);
+                }
+                BuildOutputParser.Progress progress = parser.parse(cleanLine);
+                if (progress != null) {
+                    buildProgressService.updateProgress(projectPath, progress.percent(), progress.step(), progress.message());
+                }
+            }
+        } catch (IOException e) {
+            // 进程被强制终止时管道关闭，忽略
+            log.debug("读取命令输出结束: {}", e.getMessage());
+        }
     }
 
 }
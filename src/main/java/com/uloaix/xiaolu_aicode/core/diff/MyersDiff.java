@@ -0,0 +1,152 @@
+package com.uloaix.xiaolu_aicode.core.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Myers 行级差异算法（O((N+M)D)）
+ * <p>
+ * 先去掉公共前缀 / 后缀再对中间部分求最短编辑脚本；编辑距离超过上限时退化为“整段删除 + 整段插入”，
+ * 结果仍然正确，只是不再是最小差异，用于防止超大文件占用过多内存。
+ */
+public final class MyersDiff {
+
+    private MyersDiff() {
+    }
+
+    /**
+     * 编辑类型
+     */
+    public enum Operation {
+        EQUAL, DELETE, INSERT
+    }
+
+    /**
+     * 单行编辑
+     *
+     * @param operation 编辑类型
+     * @param oldIndex  旧文件行下标（INSERT 为 -1）
+     * @param newIndex  新文件行下标（DELETE 为 -1）
+     */
+    public record Edit(Operation operation, int oldIndex, int newIndex) {
+    }
+
+    /**
+     * 计算编辑脚本
+     *
+     * @param oldLines 旧文件行
+     * @param newLines 新文件行
+     * @param maxEdits 编辑距离上限（超过后退化为整段替换）
+     * @return 按顺序排列的逐行编辑
+     */
+    public static List<Edit> diff(List<String> oldLines, List<String> newLines, int maxEdits) {
+        int oldSize = oldLines.size();
+        int newSize = newLines.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && oldLines.get(prefix).equals(newLines.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && oldLines.get(oldSize - 1 - suffix).equals(newLines.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        List<Edit> edits = new ArrayList<>(Math.max(oldSize, newSize) + 16);
+        for (int i = 0; i < prefix; i++) {
+            edits.add(new Edit(Operation.EQUAL, i, i));
+        }
+        List<String> oldMiddle = oldLines.subList(prefix, oldSize - suffix);
+        List<String> newMiddle = newLines.subList(prefix, newSize - suffix);
+        List<Edit> middle = shortestEdit(oldMiddle, newMiddle, maxEdits);
+        if (middle == null) {
+            middle = new ArrayList<>(oldMiddle.size() + newMiddle.size());
+            for (int i = 0; i < oldMiddle.size(); i++) {
+                middle.add(new Edit(Operation.DELETE, i, -1));
+            }
+            for (int j = 0; j < newMiddle.size(); j++) {
+                middle.add(new Edit(Operation.INSERT, -1, j));
+            }
+        }
+        for (Edit edit : middle) {
+            edits.add(new Edit(edit.operation(),
+                    edit.oldIndex() < 0 ? -1 : edit.oldIndex() + prefix,
+                    edit.newIndex() < 0 ? -1 : edit.newIndex() + prefix));
+        }
+        for (int i = 0; i < suffix; i++) {
+            edits.add(new Edit(Operation.EQUAL, oldSize - suffix + i, newSize - suffix + i));
+        }
+        return edits;
+    }
+
+    /**
+     * Myers 贪心算法；每一步只保存对角线 [-d, d] 的快照，内存为 O(D²)
+     *
+     * @return 编辑脚本，超过编辑距离上限返回 null
+     */
+    private static List<Edit> shortestEdit(List<String> oldLines, List<String> newLines, int maxEdits) {
+        int n = oldLines.size();
+        int m = newLines.size();
+        int max = n + m;
+        if (max == 0) {
+            return new ArrayList<>();
+        }
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= Math.min(max, maxEdits); d++) {
+            int[] snapshot = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+            trace.add(snapshot);
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && oldLines.get(x).equals(newLines.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(trace, n, m);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Edit> backtrack(List<int[]> trace, int n, int m) {
+        List<Edit> edits = new ArrayList<>(n + m);
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            boolean down = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]);
+            int prevK = down ? k + 1 : k - 1;
+            int prevX = v[prevK + d];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                x--;
+                y--;
+                edits.add(new Edit(Operation.EQUAL, x, y));
+            }
+            if (down) {
+                y--;
+                edits.add(new Edit(Operation.INSERT, -1, y));
+            } else {
+                x--;
+                edits.add(new Edit(Operation.DELETE, x, -1));
+            }
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            edits.add(new Edit(Operation.EQUAL, x, y));
+        }
+        Collections.reverse(edits);
+        return edits;
+    }
+}
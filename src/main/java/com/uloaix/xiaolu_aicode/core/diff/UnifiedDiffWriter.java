@@ -0,0 +1,129 @@
+package com.uloaix.xiaolu_aicode.core.diff;
+
+import com.uloaix.xiaolu_aicode.core.diff.MyersDiff.Edit;
+import com.uloaix.xiaolu_aicode.core.diff.MyersDiff.Operation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * 统一差异格式（unified diff）输出
+ * <p>
+ * 按 hunk 逐行写入 {@link Appendable}，既可以拼成字符串，也可以直接写到响应流。
+ */
+public final class UnifiedDiffWriter {
+
+    /**
+     * 默认上下文行数
+     */
+    public static final int DEFAULT_CONTEXT = 3;
+
+    private UnifiedDiffWriter() {
+    }
+
+    /**
+     * 生成统一差异文本
+     *
+     * @param oldPath  旧文件路径（null 表示新增文件）
+     * @param newPath  新文件路径（null 表示删除文件）
+     * @param oldLines 旧文件行
+     * @param newLines 新文件行
+     * @param maxEdits 编辑距离上限
+     * @return 差异文本，内容相同返回空字符串
+     */
+    public static String format(String oldPath, String newPath, List<String> oldLines, List<String> newLines, int maxEdits) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            write(oldPath, newPath, oldLines, newLines, maxEdits, DEFAULT_CONTEXT, builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 写入二进制文件的差异说明（与 git diff 相同，不输出行级差异）
+     *
+     * @param oldPath 旧文件路径（null 表示新增文件）
+     * @param newPath 新文件路径（null 表示删除文件）
+     */
+    public static void writeBinary(String oldPath, String newPath, Appendable out) throws IOException {
+        out.append("Binary files ").append(oldPath == null ? "/dev/null" : "a/" + oldPath)
+                .append(" and ").append(newPath == null ? "/dev/null" : "b/" + newPath).append(" differ\n");
+    }
+
+    /**
+     * 写入统一差异
+     *
+     * @return hunk 数量
+     */
+    public static int write(String oldPath, String newPath, List<String> oldLines, List<String> newLines,
+                            int maxEdits, int context, Appendable out) throws IOException {
+        List<Edit> edits = MyersDiff.diff(oldLines, newLines, maxEdits);
+        int hunks = 0;
+        int index = nextChange(edits, 0);
+        // 每个 hunk 开始前，已经过的旧 / 新文件行数
+        int oldLine = 0;
+        int newLine = 0;
+        int cursor = 0;
+        while (index < edits.size()) {
+            int start = Math.max(cursor, index - context);
+            // 相邻变更间隔不超过 2 * context 时合并为同一个 hunk
+            int lastChange = index;
+            int next = nextChange(edits, lastChange + 1);
+            while (next < edits.size() && next - lastChange - 1 <= 2 * context) {
+                lastChange = next;
+                next = nextChange(edits, lastChange + 1);
+            }
+            int end = Math.min(edits.size(), lastChange + context + 1);
+            for (int i = cursor; i < start; i++) {
+                oldLine += edits.get(i).operation() != Operation.INSERT ? 1 : 0;
+                newLine += edits.get(i).operation() != Operation.DELETE ? 1 : 0;
+            }
+            int oldCount = 0;
+            int newCount = 0;
+            for (int i = start; i < end; i++) {
+                oldCount += edits.get(i).operation() != Operation.INSERT ? 1 : 0;
+                newCount += edits.get(i).operation() != Operation.DELETE ? 1 : 0;
+            }
+            if (hunks == 0) {
+                out.append("--- ").append(oldPath == null ? "/dev/null" : "a/" + oldPath).append('\n');
+                out.append("+++ ").append(newPath == null ? "/dev/null" : "b/" + newPath).append('\n');
+            }
+            out.append("@@ -").append(range(oldLine, oldCount))
+                    .append(" +").append(range(newLine, newCount)).append(" @@\n");
+            for (int i = start; i < end; i++) {
+                Edit edit = edits.get(i);
+                switch (edit.operation()) {
+                    case EQUAL -> out.append(' ').append(oldLines.get(edit.oldIndex()));
+                    case DELETE -> out.append('-').append(oldLines.get(edit.oldIndex()));
+                    case INSERT -> out.append('+').append(newLines.get(edit.newIndex()));
+                }
+                out.append('\n');
+            }
+            oldLine += oldCount;
+            newLine += newCount;
+            cursor = end;
+            hunks++;
+            index = next;
+        }
+        return hunks;
+    }
+
+    private static int nextChange(List<Edit> edits, int from) {
+        int index = from;
+        while (index < edits.size() && edits.get(index).operation() == Operation.EQUAL) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * hunk 行号范围：空范围的起始行为前一行（与 diff -u 一致）
+     */
+    private static String range(int linesBefore, int count) {
+        int start = count == 0 ? linesBefore : linesBefore + 1;
+        return count == 1 ? String.valueOf(start) : start + "," + count;
+    }
+}
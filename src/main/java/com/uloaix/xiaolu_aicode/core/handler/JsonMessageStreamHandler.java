@@ -1,6 +1,5 @@
 package com.uloaix.xiaolu_aicode.core.handler;
 
-import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.uloaix.xiaolu_aicode.ai.model.message.*;
@@ -17,9 +16,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * JSON 消息流处理器
  * 处理 VUE_PROJECT 类型的复杂流式响应，包含工具调用信息
@@ -27,6 +23,12 @@ import java.util.Set;
 @Slf4j
 @Component
 public class JsonMessageStreamHandler {
+
+    /**
+     * 工具参数增量的 SSE 事件名
+     */
+    private static final String TOOL_ARGUMENTS_DELTA_EVENT = "tool-arguments-delta";
+
     @Resource
     private VueProjectBuilder vueProjectBuilder;
 
@@ -37,7 +39,7 @@ public class JsonMessageStreamHandler {
     private AppVersionService appVersionService;
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 直接消费类型化的流式消息并重组为完整的响应格式（无需再解析 JSON）
      *
      * @param originFlux         原始流
      * @param chatHistoryService 聊天历史服务
@@ -45,19 +47,17 @@ public class JsonMessageStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
-                               ChatHistoryService chatHistoryService,
-                               long appId, User loginUser) {
+    public Flux<StreamOutput> handle(Flux<StreamMessage> originFlux,
+                                     ChatHistoryService chatHistoryService,
+                                     long appId, User loginUser) {
         // 收集数据用于生成后端记忆格式
         StringBuilder chatHistoryStringBuilder = new StringBuilder();
-        // 用于跟踪已经见过的工具ID，判断是否是第一次调用
-        Set<String> seenToolIds = new HashSet<>();
         return originFlux
-                .map(chunk -> {
-                    // 解析每个 JSON 消息块
-                    return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
+                .map(message -> {
+                    // 处理每条流式消息
+                    return handleStreamMessage(message, chatHistoryStringBuilder, appId);
                 })
-                .filter(StrUtil::isNotEmpty) // 过滤空字串
+                .filter(output -> !output.isEmptyText()) // 过滤空字串
                 .doOnComplete(() -> {
                     // 流式响应完成后，添加 AI 消息到对话历史
                     // 注意：doOnComplete 里的异常会把“正常结束”变成 error，进而影响 SSE（触发全局异常处理器）。
@@ -86,46 +86,42 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 收集 TokenStream 数据并转换为前端展示内容
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
-        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
-        switch (typeEnum) {
-            case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
+    private StreamOutput handleStreamMessage(StreamMessage message, StringBuilder chatHistoryStringBuilder, long appId) {
+        switch (message) {
+            case AiResponseMessage aiMessage -> {
                 String data = aiMessage.getData();
                 // 直接拼接响应
                 chatHistoryStringBuilder.append(data);
-                return data;
+                return StreamOutput.text(data);
             }
-            case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
-                String toolId = toolRequestMessage.getId();
-                // 检查是否是第一次看到这个工具 ID
-                if (toolId != null && !seenToolIds.contains(toolId)) {
-                    // 第一次调用这个工具，记录 ID 并完整返回工具信息
-                    seenToolIds.add(toolId);
-                    BaseTool tool = toolManager.getTool(toolRequestMessage.getName());
-                    if (tool == null) {
-                        log.warn("收到未知工具请求: {}", toolRequestMessage.getName());
-                        return String.format("\n\n[选择工具] 未知工具：%s\n\n", toolRequestMessage.getName());
-                    }
-                    return tool.generateToolRequestResponse();
-                } else {
-                    // 不是第一次调用这个工具，直接返回空
-                    return "";
+            case ToolRequestMessage toolRequestMessage -> {
+                // 门面已按工具调用 ID 去重，每个工具调用只会收到一次
+                BaseTool tool = toolManager.getTool(toolRequestMessage.getName());
+                if (tool == null) {
+                    log.warn("收到未知工具请求: {}", toolRequestMessage.getName());
+                    return StreamOutput.text(String.format("\n\n[选择工具] 未知工具：%s\n\n", toolRequestMessage.getName()));
                 }
+                return StreamOutput.text(tool.generateToolRequestResponse());
+            }
+            case ToolArgumentsDeltaMessage deltaMessage -> {
+                // 参数增量只用于前端实时预览，不写入对话历史
+                return StreamOutput.event(TOOL_ARGUMENTS_DELTA_EVENT, deltaMessage);
+            }
+            case FileWritePreviewMessage previewMessage -> {
+                // 文件预览事件：file-write-start / file-write-delta / file-write-end，同样不写入对话历史
+                return StreamOutput.event(previewMessage.getType().replace('_', '-'), previewMessage);
             }
-            case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+            case ToolExecutedMessage toolExecutedMessage -> {
                 BaseTool tool = toolManager.getTool(toolExecutedMessage.getName());
                 String result;
+                String historyResult;
                 if (tool == null) {
                     log.warn("收到未知工具执行结果: {}", toolExecutedMessage.getName());
                     result = String.format("[⚒️工具调用] 未知工具 %s\n参数：%s",
                             toolExecutedMessage.getName(), toolExecutedMessage.getArguments());
+                    historyResult = result;
                 } else {
                     JSONObject jsonObject;
                     try {
@@ -135,15 +131,16 @@ public class JsonMessageStreamHandler {
                         jsonObject = new JSONObject();
                     }
                     result = tool.generateToolExecutedResult(jsonObject);
+                    // 持久化的内容可能只是引用（如写文件只保存路径和摘要），避免历史记录膨胀
+                    historyResult = tool.generateToolHistoryResult(jsonObject, appVersionService.resolveActiveVersion(appId));
                 }
                 // 输出前端和要持久化的内容
-                String output = String.format("\n\n%s\n\n", result);
-                chatHistoryStringBuilder.append(output);
-                return output;
+                chatHistoryStringBuilder.append(String.format("\n\n%s\n\n", historyResult));
+                return StreamOutput.text(String.format("\n\n%s\n\n", result));
             }
             default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
-                return "";
+                log.error("不支持的消息类型: {}", message.getType());
+                return StreamOutput.text("");
             }
         }
     }
@@ -1,5 +1,7 @@
 package com.uloaix.xiaolu_aicode.core.handler;
 
+import com.uloaix.xiaolu_aicode.ai.model.message.AiResponseMessage;
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessage;
 import com.uloaix.xiaolu_aicode.model.entity.User;
 import com.uloaix.xiaolu_aicode.model.enums.ChatHistoryMessageTypeEnum;
 import com.uloaix.xiaolu_aicode.service.ChatHistoryService;
@@ -23,16 +25,18 @@ public class SimpleTextStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
-                               ChatHistoryService chatHistoryService,
-                               long appId, User loginUser) {
+    public Flux<StreamOutput> handle(Flux<StreamMessage> originFlux,
+                                     ChatHistoryService chatHistoryService,
+                                     long appId, User loginUser) {
         StringBuilder aiResponseBuilder = new StringBuilder();
         return originFlux
-                .map(chunk -> {
+                .map(message -> {
                     // 收集AI响应内容
+                    String chunk = message instanceof AiResponseMessage aiMessage ? aiMessage.getData() : "";
                     aiResponseBuilder.append(chunk);
-                    return chunk;
+                    return StreamOutput.text(chunk);
                 })
+                .filter(output -> !output.isEmptyText())
                 .doOnComplete(() -> {
                     // 流式响应完成后，添加AI消息到对话历史
                     String aiResponse = aiResponseBuilder.toString();
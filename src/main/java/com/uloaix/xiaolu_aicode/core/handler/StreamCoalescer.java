@@ -0,0 +1,219 @@
+package com.uloaix.xiaolu_aicode.core.handler;
+
+import com.uloaix.xiaolu_aicode.ai.model.message.MergeableMessage;
+import com.uloaix.xiaolu_aicode.config.StreamCoalesceConfig;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式输出合并器
+ * 位于流处理器与 SSE 映射之间：缓冲达到字节上限或首段内容等待超过时间窗口时才推送一次，
+ * 以少量延迟换取更少的 SSE 事件和写系统调用。合并默认文本事件，以及相邻且可合并（{@link MergeableMessage}）的同名具名事件
+ * （如文件预览增量）；其它具名事件到达时先推送已缓冲的内容再原样透传，保证顺序不变；流结束或出错前会先推送剩余内容。
+ */
+@Component
+public class StreamCoalescer {
+
+    @Resource
+    private StreamCoalesceConfig streamCoalesceConfig;
+
+    /**
+     * 合并输出流
+     *
+     * @param source 处理后的输出流
+     * @return 合并后的输出流
+     */
+    public Flux<StreamOutput> coalesce(Flux<StreamOutput> source) {
+        if (!streamCoalesceConfig.isEnabled() || streamCoalesceConfig.getMaxBytes() <= 0) {
+            return source;
+        }
+        int maxBytes = streamCoalesceConfig.getMaxBytes();
+        long maxWaitMillis = streamCoalesceConfig.getMaxWaitMillis();
+        return Flux.create(sink -> {
+            Batch batch = new Batch(sink, maxBytes, maxWaitMillis);
+            Disposable upstream = source.subscribe(batch::append, batch::error, batch::complete);
+            sink.onDispose(() -> {
+                upstream.dispose();
+                batch.cancelTimer();
+            });
+        });
+    }
+
+    /**
+     * 单个连接的合并缓冲区（上游回调与定时刷新可能在不同线程，统一加锁）
+     */
+    private static final class Batch {
+
+        private final FluxSink<StreamOutput> sink;
+
+        private final int maxBytes;
+
+        private final long maxWaitMillis;
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private int bufferedBytes;
+
+        /**
+         * 缓冲中的可合并事件（与文本缓冲不会同时存在）
+         */
+        private String pendingEvent;
+
+        private MergeableMessage pendingMessage;
+
+        /**
+         * 缓冲代次，用于忽略已经过期的定时刷新
+         */
+        private long generation;
+
+        private Disposable timer;
+
+        private Batch(FluxSink<StreamOutput> sink, int maxBytes, long maxWaitMillis) {
+            this.sink = sink;
+            this.maxBytes = maxBytes;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        private synchronized void append(StreamOutput output) {
+            if (!output.isText()) {
+                if (output.data() instanceof MergeableMessage message) {
+                    appendMergeable(output.event(), message);
+                    return;
+                }
+                // 其它具名事件不合并，先推送缓冲内容保证顺序
+                flush();
+                if (!sink.isCancelled()) {
+                    sink.next(output);
+                }
+                return;
+            }
+            if (output.isEmptyText()) {
+                return;
+            }
+            if (pendingMessage != null) {
+                flush();
+            }
+            String chunk = output.data().toString();
+            if (buffer.isEmpty()) {
+                startTimer();
+            }
+            buffer.append(chunk);
+            bufferedBytes += utf8Length(chunk);
+            if (bufferedBytes >= maxBytes || maxWaitMillis <= 0) {
+                flush();
+            }
+        }
+
+        /**
+         * 可合并事件：与缓冲中的同名事件合并，不能合并时先推送已缓冲的内容
+         */
+        private void appendMergeable(String event, MergeableMessage message) {
+            MergeableMessage merged = pendingMessage != null && event.equals(pendingEvent)
+                    ? pendingMessage.mergeWith(message) : null;
+            if (merged != null) {
+                pendingMessage = merged;
+            } else {
+                flush();
+                pendingEvent = event;
+                pendingMessage = message;
+                startTimer();
+            }
+            bufferedBytes += message.mergeLength();
+            if (bufferedBytes >= maxBytes || maxWaitMillis <= 0) {
+                flush();
+            }
+        }
+
+        /**
+         * 第一段内容进入缓冲时开启时间窗口
+         */
+        private void startTimer() {
+            if (maxWaitMillis > 0) {
+                long current = generation;
+                timer = Schedulers.parallel().schedule(() -> flushByTimer(current), maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void flushByTimer(long expectedGeneration) {
+            if (generation == expectedGeneration) {
+                flush();
+            }
+        }
+
+        private synchronized void complete() {
+            flush();
+            sink.complete();
+        }
+
+        private synchronized void error(Throwable error) {
+            flush();
+            sink.error(error);
+        }
+
+        private synchronized void cancelTimer() {
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+            buffer.setLength(0);
+            bufferedBytes = 0;
+            pendingEvent = null;
+            pendingMessage = null;
+        }
+
+        private void flush() {
+            generation++;
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+            if (pendingMessage != null) {
+                StreamOutput output = StreamOutput.event(pendingEvent, pendingMessage);
+                pendingEvent = null;
+                pendingMessage = null;
+                bufferedBytes = 0;
+                if (!sink.isCancelled()) {
+                    sink.next(output);
+                }
+                return;
+            }
+            if (buffer.isEmpty()) {
+                return;
+            }
+            String data = buffer.toString();
+            buffer.setLength(0);
+            bufferedBytes = 0;
+            if (!sink.isCancelled()) {
+                sink.next(StreamOutput.text(data));
+            }
+        }
+
+        /**
+         * 计算 UTF-8 编码字节数（不分配字节数组）
+         */
+        private static int utf8Length(String text) {
+            int length = text.length();
+            int bytes = 0;
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else {
+                    bytes += 3;
+                }
+            }
+            return bytes;
+        }
+    }
+}
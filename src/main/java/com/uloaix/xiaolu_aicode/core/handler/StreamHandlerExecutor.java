@@ -1,5 +1,6 @@
 package com.uloaix.xiaolu_aicode.core.handler;
 
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessage;
 import com.uloaix.xiaolu_aicode.model.entity.User;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.service.ChatHistoryService;
@@ -11,8 +12,8 @@ import reactor.core.publisher.Flux;
 /**
  * 流处理器执行器
  * 根据代码生成类型创建合适的流处理器：
- * 1. 传统的 Flux<String> 流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
- * 2. TokenStream 格式的复杂流（VUE_PROJECT） -> JsonMessageStreamHandler
+ * 1. 纯文本消息流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
+ * 2. 包含工具调用的消息流（VUE_PROJECT） -> JsonMessageStreamHandler
  */
 @Slf4j
 @Component
@@ -21,6 +22,9 @@ public class StreamHandlerExecutor {
     @Resource
     private JsonMessageStreamHandler jsonMessageStreamHandler;
 
+    @Resource
+    private StreamCoalescer streamCoalescer;
+
     /**
      * 创建流处理器并处理聊天历史记录
      *
@@ -29,16 +33,18 @@ public class StreamHandlerExecutor {
      * @param appId              应用ID
      * @param loginUser          登录用户
      * @param codeGenType        代码生成类型
-     * @return 处理后的流
+     * @return 处理后的流（已按配置合并细碎片段）
      */
-    public Flux<String> doExecute(Flux<String> originFlux,
-                                  ChatHistoryService chatHistoryService,
-                                  long appId, User loginUser, CodeGenTypeEnum codeGenType) {
-        return switch (codeGenType) {
+    public Flux<StreamOutput> doExecute(Flux<StreamMessage> originFlux,
+                                        ChatHistoryService chatHistoryService,
+                                        long appId, User loginUser, CodeGenTypeEnum codeGenType) {
+        Flux<StreamOutput> handledFlux = switch (codeGenType) {
             case VUE_PROJECT -> // 使用注入的组件实例
                     jsonMessageStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
             case HTML, MULTI_FILE -> // 简单文本处理器不需要依赖注入
                     new SimpleTextStreamHandler().handle(originFlux, chatHistoryService, appId, loginUser);
         };
+        // 在 SSE 映射之前合并 token，减少事件数量
+        return streamCoalescer.coalesce(handledFlux);
     }
 }
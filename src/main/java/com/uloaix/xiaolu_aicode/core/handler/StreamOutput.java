@@ -0,0 +1,36 @@
+package com.uloaix.xiaolu_aicode.core.handler;
+
+/**
+ * 流处理器输出
+ * 默认事件为文本片段（前端直接拼接）；具名事件携带结构化数据，在 SSE 出口处序列化
+ *
+ * @param event 事件名，null 表示默认文本事件
+ * @param data  文本片段或事件数据
+ */
+public record StreamOutput(String event, Object data) {
+
+    /**
+     * 默认文本事件
+     */
+    public static StreamOutput text(String text) {
+        return new StreamOutput(null, text);
+    }
+
+    /**
+     * 具名事件
+     */
+    public static StreamOutput event(String event, Object data) {
+        return new StreamOutput(event, data);
+    }
+
+    public boolean isText() {
+        return event == null;
+    }
+
+    /**
+     * 是否为空文本（空文本不需要推送）
+     */
+    public boolean isEmptyText() {
+        return isText() && (data == null || data.toString().isEmpty());
+    }
+}
@@ -0,0 +1,10 @@
+package com.uloaix.xiaolu_aicode.core.parser;
+
+/**
+ * 代码块（围栏代码块 ```lang ... ``` 的解析结果）
+ *
+ * @param language 语言标识（已转小写，如 html / css / js）
+ * @param content  代码块内容（不含围栏）
+ */
+public record CodeBlock(String language, String content) {
+}
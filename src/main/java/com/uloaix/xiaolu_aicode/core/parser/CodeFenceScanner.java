@@ -0,0 +1,112 @@
+package com.uloaix.xiaolu_aicode.core.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * 围栏代码块扫描器
+ * <p>
+ * 单次线性扫描完整文本，提取所有 ```lang ... ``` 代码块，替代逐语言的 [\s\S]*? 懒惰正则。
+ * 只依赖 indexOf 查找反引号，除命中代码块的内容外不产生额外拷贝。
+ * 识别规则与 {@link StreamingCodeParser} 保持一致，保证流式与非流式解析结果相同。
+ */
+public final class CodeFenceScanner {
+
+    private static final String FENCE = "```";
+
+    /**
+     * 语言标识最大长度（与流式解析器一致）
+     */
+    private static final int MAX_INFO_LENGTH = 64;
+
+    private CodeFenceScanner() {
+    }
+
+    /**
+     * 提取全部已闭合的代码块
+     *
+     * @param content 原始内容
+     * @return 代码块列表（按出现顺序）
+     */
+    public static List<CodeBlock> scan(String content) {
+        List<CodeBlock> blocks = new ArrayList<>();
+        scan(content, blocks::add);
+        return blocks;
+    }
+
+    /**
+     * 查找第一个指定语言的代码块内容
+     *
+     * @param content  原始内容
+     * @param language 语言标识（小写）
+     * @return 代码内容，不存在返回 null
+     */
+    public static String findFirst(String content, String language) {
+        String[] found = new String[1];
+        scan(content, block -> {
+            if (found[0] == null && language.equals(block.language())) {
+                found[0] = block.content();
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * 单次扫描，按出现顺序回调每个已闭合的代码块
+     *
+     * @param content       原始内容
+     * @param blockConsumer 代码块回调
+     */
+    public static void scan(String content, Consumer<CodeBlock> blockConsumer) {
+        if (content == null || content.isEmpty()) {
+            return;
+        }
+        int length = content.length();
+        int pos = 0;
+        while (pos < length) {
+            // 1. 开始围栏
+            int open = content.indexOf(FENCE, pos);
+            if (open < 0) {
+                return;
+            }
+            int infoStart = open + FENCE.length();
+            // 多于三个的反引号视为同一个围栏
+            while (infoStart < length && content.charAt(infoStart) == '`') {
+                infoStart++;
+            }
+            // 2. 语言标识：到行尾为止，中途出现反引号则为行内代码
+            int lineEnd = infoStart;
+            while (lineEnd < length) {
+                char c = content.charAt(lineEnd);
+                if (c == '\n' || c == '`') {
+                    break;
+                }
+                lineEnd++;
+            }
+            if (lineEnd >= length) {
+                return;
+            }
+            if (content.charAt(lineEnd) == '`') {
+                int inlineEnd = content.indexOf(FENCE, lineEnd);
+                if (inlineEnd < 0) {
+                    return;
+                }
+                pos = inlineEnd + FENCE.length();
+                continue;
+            }
+            // 3. 代码内容：到下一个 ``` 为止
+            int codeStart = lineEnd + 1;
+            int close = content.indexOf(FENCE, codeStart);
+            if (close < 0) {
+                // 未闭合的代码块不返回
+                return;
+            }
+            int infoEnd = Math.min(lineEnd, infoStart + MAX_INFO_LENGTH);
+            String language = content.substring(infoStart, infoEnd).strip().toLowerCase(Locale.ROOT);
+            blockConsumer.accept(new CodeBlock(language, content.substring(codeStart, close)));
+            pos = close + FENCE.length();
+        }
+    }
+}
@@ -2,9 +2,6 @@ package com.uloaix.xiaolu_aicode.core.parser;
 
 import com.uloaix.xiaolu_aicode.ai.model.HtmlCodeResult;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * HTML 单文件代码解析器
  *
@@ -12,8 +9,6 @@ import java.util.regex.Pattern;
  */
 public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-
     @Override
     public HtmlCodeResult parseCode(String codeContent) {
         HtmlCodeResult result = new HtmlCodeResult();
@@ -35,10 +30,6 @@ public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
      * @return HTML代码
      */
     private String extractHtmlCode(String content) {
-        Matcher matcher = HTML_CODE_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+        return CodeFenceScanner.findFirst(content, "html");
     }
 }
@@ -2,8 +2,7 @@ package com.uloaix.xiaolu_aicode.core.parser;
 
 import com.uloaix.xiaolu_aicode.ai.model.MultiFileCodeResult;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * 多文件代码解析器（HTML + CSS + JS）
@@ -12,17 +11,15 @@ import java.util.regex.Pattern;
  */
 public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-
     @Override
     public MultiFileCodeResult parseCode(String codeContent) {
         MultiFileCodeResult result = new MultiFileCodeResult();
-        // 提取各类代码
-        String htmlCode = extractCodeByPattern(codeContent, HTML_CODE_PATTERN);
-        String cssCode = extractCodeByPattern(codeContent, CSS_CODE_PATTERN);
-        String jsCode = extractCodeByPattern(codeContent, JS_CODE_PATTERN);
+        // 单次扫描提取各类代码（每种语言取第一个代码块）
+        String[] codes = new String[3];
+        CodeFenceScanner.scan(codeContent, collectFirstBlock(codes));
+        String htmlCode = codes[0];
+        String cssCode = codes[1];
+        String jsCode = codes[2];
         // 设置HTML代码
         if (htmlCode != null && !htmlCode.trim().isEmpty()) {
             result.setHtmlCode(htmlCode.trim());
@@ -39,17 +36,22 @@ public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
     }
 
     /**
-     * 根据正则模式提取代码
+     * 按语言收集第一个代码块
      *
-     * @param content 原始内容
-     * @param pattern 正则模式
-     * @return 提取的代码
+     * @param codes 依次存放 HTML、CSS、JS 代码
+     * @return 代码块回调
      */
-    private String extractCodeByPattern(String content, Pattern pattern) {
-        Matcher matcher = pattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+    private Consumer<CodeBlock> collectFirstBlock(String[] codes) {
+        return block -> {
+            int index = switch (block.language()) {
+                case "html" -> 0;
+                case "css" -> 1;
+                case "js", "javascript" -> 2;
+                default -> -1;
+            };
+            if (index >= 0 && codes[index] == null) {
+                codes[index] = block.content();
+            }
+        };
     }
 }
@@ -0,0 +1,198 @@
+package com.uloaix.xiaolu_aicode.core.parser;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * 流式代码解析器（HtmlCodeParser / MultiFileCodeParser 的增量版本）
+ * <p>
+ * 基于状态机逐块消费 AI 的流式输出，识别 ```html / ```css / ```js 等围栏代码块，
+ * 每当一个代码块的结束围栏到达时立即回调，无需等待完整响应，也不需要缓存整段输出。
+ * <p>
+ * 解析规则与正则解析器保持一致：
+ * <ul>
+ *     <li>``` 后到行尾为语言标识（忽略大小写、去除首尾空白）</li>
+ *     <li>代码内容到下一个 ``` 为止（不要求位于行首）</li>
+ *     <li>语言标识中出现反引号时视为行内代码，跳过到下一个 ```</li>
+ *     <li>流结束时仍未闭合的代码块不会回调</li>
+ * </ul>
+ * 非线程安全：一个实例只服务于一条流。
+ */
+public class StreamingCodeParser {
+
+    /**
+     * 围栏反引号数量
+     */
+    private static final int FENCE_LENGTH = 3;
+
+    /**
+     * 语言标识最大缓存长度，避免异常输出撑大缓冲区
+     */
+    private static final int MAX_INFO_LENGTH = 64;
+
+    private enum State {
+        /**
+         * 代码块之外的普通文本
+         */
+        TEXT,
+        /**
+         * 已读到开始围栏，正在读取语言标识
+         */
+        FENCE_INFO,
+        /**
+         * 代码块内部
+         */
+        CODE,
+        /**
+         * 行内代码（```xxx```），跳过到下一个围栏
+         */
+        INLINE
+    }
+
+    private final Consumer<CodeBlock> blockConsumer;
+
+    private final StringBuilder infoBuilder = new StringBuilder();
+
+    private final StringBuilder codeBuilder = new StringBuilder();
+
+    private State state = State.TEXT;
+
+    /**
+     * 当前连续反引号数量（可能跨 chunk）
+     */
+    private int backtickRun;
+
+    private String currentLanguage;
+
+    private boolean fenceSeen;
+
+    /**
+     * @param blockConsumer 代码块闭合时的回调
+     */
+    public StreamingCodeParser(Consumer<CodeBlock> blockConsumer) {
+        this.blockConsumer = blockConsumer;
+    }
+
+    /**
+     * 消费一段流式输出
+     *
+     * @param chunk 输出片段
+     */
+    public void feed(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        int length = chunk.length();
+        int i = 0;
+        while (i < length) {
+            // 快速路径：没有待定反引号时，直接跳到下一个反引号
+            if (backtickRun == 0 && (state == State.TEXT || state == State.CODE || state == State.INLINE)) {
+                int next = chunk.indexOf('`', i);
+                int end = next < 0 ? length : next;
+                if (state == State.CODE) {
+                    codeBuilder.append(chunk, i, end);
+                }
+                if (next < 0) {
+                    return;
+                }
+                i = next;
+            }
+            char c = chunk.charAt(i++);
+            switch (state) {
+                case TEXT -> onText(c);
+                case FENCE_INFO -> onFenceInfo(c);
+                case CODE -> onCode(c);
+                case INLINE -> onInline(c);
+            }
+        }
+    }
+
+    /**
+     * 流结束：丢弃未闭合的代码块并重置状态
+     */
+    public void finish() {
+        state = State.TEXT;
+        backtickRun = 0;
+        currentLanguage = null;
+        infoBuilder.setLength(0);
+        codeBuilder.setLength(0);
+    }
+
+    /**
+     * 是否已经进入过代码块（用于判断是否需要保留整段输出作为兜底）
+     */
+    public boolean hasSeenFence() {
+        return fenceSeen;
+    }
+
+    private void onText(char c) {
+        if (c != '`') {
+            backtickRun = 0;
+            return;
+        }
+        if (++backtickRun == FENCE_LENGTH) {
+            backtickRun = 0;
+            infoBuilder.setLength(0);
+            state = State.FENCE_INFO;
+        }
+    }
+
+    private void onFenceInfo(char c) {
+        if (c == '\n') {
+            currentLanguage = infoBuilder.toString().strip().toLowerCase(Locale.ROOT);
+            infoBuilder.setLength(0);
+            codeBuilder.setLength(0);
+            fenceSeen = true;
+            state = State.CODE;
+            return;
+        }
+        if (c == '`') {
+            if (infoBuilder.isEmpty()) {
+                // ```` 这类多于三个反引号的围栏，忽略多余的反引号
+                return;
+            }
+            // 语言标识中出现反引号，说明是行内代码而不是代码块
+            infoBuilder.setLength(0);
+            backtickRun = 1;
+            state = State.INLINE;
+            return;
+        }
+        if (infoBuilder.length() < MAX_INFO_LENGTH) {
+            infoBuilder.append(c);
+        }
+    }
+
+    private void onCode(char c) {
+        if (c == '`') {
+            if (++backtickRun == FENCE_LENGTH) {
+                backtickRun = 0;
+                emitBlock();
+                state = State.TEXT;
+            }
+            return;
+        }
+        // 不足三个的反引号属于代码内容
+        for (; backtickRun > 0; backtickRun--) {
+            codeBuilder.append('`');
+        }
+        codeBuilder.append(c);
+    }
+
+    private void onInline(char c) {
+        if (c != '`') {
+            backtickRun = 0;
+            return;
+        }
+        if (++backtickRun == FENCE_LENGTH) {
+            backtickRun = 0;
+            state = State.TEXT;
+        }
+    }
+
+    private void emitBlock() {
+        CodeBlock block = new CodeBlock(currentLanguage, codeBuilder.toString());
+        currentLanguage = null;
+        codeBuilder.setLength(0);
+        blockConsumer.accept(block);
+    }
+}
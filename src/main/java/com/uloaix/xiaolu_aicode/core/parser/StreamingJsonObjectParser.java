@@ -0,0 +1,264 @@
+package com.uloaix.xiaolu_aicode.core.parser;
+
+import java.util.Set;
+
+/**
+ * 流式 JSON 对象解析器
+ * <p>
+ * 用于解析分片到达的工具调用参数（PartialToolCall.partialArguments()）。只关心顶层对象的字符串字段：
+ * 指定的流式字段在每次 feed 时回调已解码的增量，其余字符串字段在完整读取后回调一次；
+ * 数字、布尔、嵌套对象/数组等值会被跳过。转义序列（含 \\uXXXX）可以跨片段。
+ * 非线程安全：一个实例只服务于一次工具调用。
+ */
+public class StreamingJsonObjectParser {
+
+    /**
+     * 解析回调
+     */
+    public interface Listener {
+
+        /**
+         * 非流式字符串字段读取完成
+         */
+        void onValue(String key, String value);
+
+        /**
+         * 流式字段的增量内容
+         */
+        void onDelta(String key, String delta);
+
+        /**
+         * 流式字段读取完成
+         */
+        void onEnd(String key);
+    }
+
+    private enum State {
+        OBJECT_START,
+        EXPECT_KEY,
+        IN_KEY,
+        EXPECT_COLON,
+        EXPECT_VALUE,
+        IN_STRING_VALUE,
+        IN_SCALAR,
+        IN_NESTED,
+        DONE
+    }
+
+    private final Set<String> streamingKeys;
+
+    private final Listener listener;
+
+    private final StringBuilder keyBuilder = new StringBuilder();
+
+    private final StringBuilder valueBuilder = new StringBuilder();
+
+    private State state = State.OBJECT_START;
+
+    private String currentKey;
+
+    private boolean currentKeyStreaming;
+
+    /**
+     * 字符串转义状态
+     */
+    private boolean escaping;
+
+    private int unicodeRemaining;
+
+    private final StringBuilder unicodeDigits = new StringBuilder(4);
+
+    /**
+     * 嵌套值状态
+     */
+    private int nestedDepth;
+
+    private boolean nestedInString;
+
+    /**
+     * @param streamingKeys 需要增量回调的字段
+     * @param listener      解析回调
+     */
+    public StreamingJsonObjectParser(Set<String> streamingKeys, Listener listener) {
+        this.streamingKeys = streamingKeys;
+        this.listener = listener;
+    }
+
+    /**
+     * 消费一段参数片段
+     *
+     * @param chunk 参数片段
+     */
+    public void feed(String chunk) {
+        if (chunk == null || chunk.isEmpty() || state == State.DONE) {
+            return;
+        }
+        int length = chunk.length();
+        for (int i = 0; i < length && state != State.DONE; i++) {
+            char c = chunk.charAt(i);
+            switch (state) {
+                case OBJECT_START -> {
+                    if (c == '{') {
+                        state = State.EXPECT_KEY;
+                    }
+                }
+                case EXPECT_KEY -> {
+                    if (c == '"') {
+                        keyBuilder.setLength(0);
+                        state = State.IN_KEY;
+                    } else if (c == '}') {
+                        state = State.DONE;
+                    }
+                }
+                case IN_KEY -> {
+                    if (readStringChar(c, keyBuilder)) {
+                        currentKey = keyBuilder.toString();
+                        currentKeyStreaming = streamingKeys.contains(currentKey);
+                        state = State.EXPECT_COLON;
+                    }
+                }
+                case EXPECT_COLON -> {
+                    if (c == ':') {
+                        state = State.EXPECT_VALUE;
+                    }
+                }
+                case EXPECT_VALUE -> onValueStart(c);
+                case IN_STRING_VALUE -> {
+                    if (readStringChar(c, valueBuilder)) {
+                        onStringValueEnd();
+                    }
+                }
+                case IN_SCALAR -> {
+                    if (c == ',') {
+                        state = State.EXPECT_KEY;
+                    } else if (c == '}') {
+                        state = State.DONE;
+                    }
+                }
+                case IN_NESTED -> onNested(c);
+                default -> {
+                }
+            }
+        }
+        // 每个片段结束时推送一次流式字段的增量
+        if (state == State.IN_STRING_VALUE && currentKeyStreaming) {
+            emitDelta(false);
+        }
+    }
+
+    /**
+     * 参数是否已完整读取
+     */
+    public boolean isDone() {
+        return state == State.DONE;
+    }
+
+    private void onValueStart(char c) {
+        if (Character.isWhitespace(c)) {
+            return;
+        }
+        if (c == '"') {
+            valueBuilder.setLength(0);
+            state = State.IN_STRING_VALUE;
+        } else if (c == '{' || c == '[') {
+            nestedDepth = 1;
+            nestedInString = false;
+            state = State.IN_NESTED;
+        } else {
+            state = State.IN_SCALAR;
+        }
+    }
+
+    private void onStringValueEnd() {
+        if (currentKeyStreaming) {
+            emitDelta(true);
+            listener.onEnd(currentKey);
+        } else {
+            listener.onValue(currentKey, valueBuilder.toString());
+            valueBuilder.setLength(0);
+        }
+        state = State.EXPECT_KEY;
+    }
+
+    private void onNested(char c) {
+        if (nestedInString) {
+            if (escaping) {
+                escaping = false;
+            } else if (c == '\\') {
+                escaping = true;
+            } else if (c == '"') {
+                nestedInString = false;
+            }
+            return;
+        }
+        if (c == '"') {
+            nestedInString = true;
+        } else if (c == '{' || c == '[') {
+            nestedDepth++;
+        } else if ((c == '}' || c == ']') && --nestedDepth == 0) {
+            state = State.EXPECT_KEY;
+        }
+    }
+
+    /**
+     * 读取字符串中的一个字符（处理转义）
+     *
+     * @return 是否读到了字符串的结束引号
+     */
+    private boolean readStringChar(char c, StringBuilder target) {
+        if (unicodeRemaining > 0) {
+            if (Character.digit(c, 16) == -1) {
+                // 非法的 unicode 转义：已读到的部分按原文保留，当前字符重新按普通字符处理
+                target.append("\\u").append(unicodeDigits);
+                unicodeRemaining = 0;
+                return readStringChar(c, target);
+            }
+            unicodeDigits.append(c);
+            if (--unicodeRemaining == 0) {
+                target.append((char) Integer.parseInt(unicodeDigits, 0, 4, 16));
+            }
+            return false;
+        }
+        if (escaping) {
+            escaping = false;
+            switch (c) {
+                case 'n' -> target.append('\n');
+                case 't' -> target.append('\t');
+                case 'r' -> target.append('\r');
+                case 'b' -> target.append('\b');
+                case 'f' -> target.append('\f');
+                case 'u' -> {
+                    unicodeRemaining = 4;
+                    unicodeDigits.setLength(0);
+                }
+                // \" \\ \/ 以及非法转义都原样保留字符
+                default -> target.append(c);
+            }
+            return false;
+        }
+        if (c == '\\') {
+            escaping = true;
+            return false;
+        }
+        if (c == '"') {
+            return true;
+        }
+        target.append(c);
+        return false;
+    }
+
+    /**
+     * 推送流式字段的增量；未结束时保留末尾的高代理项，避免拆开代理对
+     */
+    private void emitDelta(boolean end) {
+        int length = valueBuilder.length();
+        if (!end && length > 0 && Character.isHighSurrogate(valueBuilder.charAt(length - 1))) {
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        listener.onDelta(currentKey, valueBuilder.substring(0, length));
+        valueBuilder.delete(0, length);
+    }
+}
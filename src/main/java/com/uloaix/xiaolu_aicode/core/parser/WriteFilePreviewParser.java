@@ -0,0 +1,91 @@
+package com.uloaix.xiaolu_aicode.core.parser;
+
+import com.uloaix.xiaolu_aicode.ai.model.message.FileWritePreviewMessage;
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessage;
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessageTypeEnum;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * writeFile 工具参数预览解析器
+ * <p>
+ * 从流式到达的工具参数中尽早取出 relativeFilePath，并把 content 的增量转换为文件预览消息。
+ * 如果 content 先于 relativeFilePath 到达，内容会先缓存，拿到路径后再一起推送。
+ */
+public class WriteFilePreviewParser implements StreamingJsonObjectParser.Listener {
+
+    /**
+     * 对应 FileWriteTool 的工具名称
+     */
+    public static final String TOOL_NAME = "writeFile";
+
+    private static final String PATH_KEY = "relativeFilePath";
+
+    private static final String CONTENT_KEY = "content";
+
+    private final String toolId;
+
+    private final Consumer<StreamMessage> messageConsumer;
+
+    private final StreamingJsonObjectParser parser = new StreamingJsonObjectParser(Set.of(CONTENT_KEY), this);
+
+    private final StringBuilder pendingContent = new StringBuilder();
+
+    private String relativeFilePath;
+
+    private boolean contentEnded;
+
+    /**
+     * @param toolId          工具调用 ID
+     * @param messageConsumer 预览消息回调
+     */
+    public WriteFilePreviewParser(String toolId, Consumer<StreamMessage> messageConsumer) {
+        this.toolId = toolId;
+        this.messageConsumer = messageConsumer;
+    }
+
+    /**
+     * 消费一段参数片段
+     */
+    public void feed(String partialArguments) {
+        parser.feed(partialArguments);
+    }
+
+    @Override
+    public void onValue(String key, String value) {
+        if (!PATH_KEY.equals(key) || relativeFilePath != null) {
+            return;
+        }
+        relativeFilePath = value;
+        emit(StreamMessageTypeEnum.FILE_WRITE_START, null);
+        if (!pendingContent.isEmpty()) {
+            emit(StreamMessageTypeEnum.FILE_WRITE_DELTA, pendingContent.toString());
+            pendingContent.setLength(0);
+        }
+        if (contentEnded) {
+            emit(StreamMessageTypeEnum.FILE_WRITE_END, null);
+        }
+    }
+
+    @Override
+    public void onDelta(String key, String delta) {
+        if (relativeFilePath == null) {
+            pendingContent.append(delta);
+            return;
+        }
+        emit(StreamMessageTypeEnum.FILE_WRITE_DELTA, delta);
+    }
+
+    @Override
+    public void onEnd(String key) {
+        contentEnded = true;
+        if (relativeFilePath != null) {
+            emit(StreamMessageTypeEnum.FILE_WRITE_END, null);
+        }
+    }
+
+    private void emit(StreamMessageTypeEnum type, String delta) {
+        messageConsumer.accept(new FileWritePreviewMessage(type, toolId, relativeFilePath, delta));
+    }
+}
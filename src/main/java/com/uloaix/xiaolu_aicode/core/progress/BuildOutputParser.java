@@ -0,0 +1,144 @@
+package com.uloaix.xiaolu_aicode.core.progress;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * npm / vite 输出解析器
+ * <p>
+ * 逐行解析构建进程输出，转换为构建进度；每个命令使用一个实例，进度只增不减：
+ * <ul>
+ *     <li>npm install（--loglevel=http）：按已请求的依赖资源数渐近增长，出现 “added N packages” 时到达安装阶段终点</li>
+ *     <li>vite build：按 building / transforming / modules transformed / rendering chunks / gzip / built in 阶段推进</li>
+ * </ul>
+ */
+public final class BuildOutputParser {
+
+    private static final Pattern ANSI_PATTERN = Pattern.compile("\u001B\\[[0-9;?]*[ -/]*[@-~]");
+
+    private static final Pattern NPM_FETCH_PATTERN = Pattern.compile("^npm (?:http|HTTP) fetch ");
+
+    private static final Pattern NPM_ADDED_PATTERN = Pattern.compile("(?:added|changed) (\\d+) packages?");
+
+    private static final Pattern VITE_TRANSFORMED_PATTERN = Pattern.compile("(\\d+) modules? transformed");
+
+    /**
+     * 安装阶段进度区间
+     */
+    public static final int INSTALL_START = 10;
+
+    public static final int INSTALL_END = 60;
+
+    /**
+     * 构建阶段进度区间
+     */
+    public static final int BUILD_START = 60;
+
+    public static final int BUILD_END = 95;
+
+    /**
+     * 解析出的进度
+     */
+    public record Progress(int percent, String step, String message) {
+    }
+
+    private final boolean install;
+
+    private int fetched;
+
+    private int lastPercent;
+
+    private BuildOutputParser(boolean install) {
+        this.install = install;
+        this.lastPercent = install ? INSTALL_START : BUILD_START;
+    }
+
+    public static BuildOutputParser forInstall() {
+        return new BuildOutputParser(true);
+    }
+
+    public static BuildOutputParser forBuild() {
+        return new BuildOutputParser(false);
+    }
+
+    /**
+     * 去掉终端颜色控制符
+     */
+    public static String stripAnsi(String line) {
+        return line == null ? "" : ANSI_PATTERN.matcher(line).replaceAll("");
+    }
+
+    /**
+     * 是否为 npm 的逐请求日志（只用于计数，不计入日志尾部）
+     */
+    public static boolean isNoise(String line) {
+        return NPM_FETCH_PATTERN.matcher(line).find();
+    }
+
+    /**
+     * 解析一行输出
+     *
+     * @param line 去掉颜色控制符后的输出行
+     * @return 进度有变化时返回新进度，否则返回 null
+     */
+    public Progress parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        return install ? parseInstall(trimmed) : parseBuild(trimmed);
+    }
+
+    private Progress parseInstall(String line) {
+        if (NPM_FETCH_PATTERN.matcher(line).find()) {
+            fetched++;
+            // 依赖总数未知，按请求数渐近逼近安装阶段终点
+            int span = INSTALL_END - INSTALL_START - 1;
+            int percent = INSTALL_START + (int) (span * (double) fetched / (fetched + 150));
+            if (percent == lastPercent && fetched > 1) {
+                // 百分比未变化时不重复推送
+                return null;
+            }
+            return advance(percent, "install", "安装依赖中，已获取 " + fetched + " 个依赖资源");
+        }
+        Matcher matcher = NPM_ADDED_PATTERN.matcher(line);
+        if (matcher.find()) {
+            return advance(INSTALL_END, "install", "依赖安装完成，共 " + matcher.group(1) + " 个包");
+        }
+        if (line.startsWith("up to date")) {
+            return advance(INSTALL_END, "install", "依赖已是最新");
+        }
+        return null;
+    }
+
+    private Progress parseBuild(String line) {
+        if (line.contains("building for")) {
+            return advance(BUILD_START + 2, "build", "开始编译");
+        }
+        Matcher matcher = VITE_TRANSFORMED_PATTERN.matcher(line);
+        if (matcher.find()) {
+            return advance(80, "build", "已转换 " + matcher.group(1) + " 个模块");
+        }
+        if (line.startsWith("transforming")) {
+            return advance(65, "build", "转换模块中");
+        }
+        if (line.startsWith("rendering chunks")) {
+            return advance(85, "build", "生成代码块");
+        }
+        if (line.startsWith("computing gzip size")) {
+            return advance(90, "build", "计算产物大小");
+        }
+        if (line.contains("built in")) {
+            return advance(BUILD_END, "build", "编译完成");
+        }
+        return null;
+    }
+
+    private Progress advance(int percent, String step, String message) {
+        if (percent < lastPercent) {
+            return null;
+        }
+        lastPercent = percent;
+        return new Progress(percent, step, message);
+    }
+}
@@ -10,6 +10,10 @@ import reactor.core.publisher.Sinks;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -17,14 +21,28 @@ import java.util.concurrent.ConcurrentMap;
 @Component
 public class BuildProgressService {
 
+    /**
+     * 每个构建保留的输出日志行数 / 单行最大长度
+     */
+    private static final int LOG_TAIL_LINES = 100;
+
+    private static final int LOG_LINE_MAX_LENGTH = 500;
+
     private final ConcurrentMap<String, Sinks.Many<BuildProgressEvent>> sinkMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, BuildProgressEvent> latestEventMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Deque<String>> logTailMap = new ConcurrentHashMap<>();
 
     public void markWaiting(String projectPath) {
         emit(projectPath, BuildProgressStatusEnum.WAITING, 0, "waiting", "等待构建开始");
     }
 
+    public void markWaiting(String projectPath, int queuePosition) {
+        emit(projectPath, BuildProgressStatusEnum.WAITING, 0, "waiting",
+                String.format("排队中，当前第 %d 位", queuePosition), queuePosition, null);
+    }
+
     public void startBuild(String projectPath) {
+        logTailMap.put(normalizeKey(projectPath), new ArrayDeque<>());
         emit(projectPath, BuildProgressStatusEnum.RUNNING, 0, "prepare", "开始构建");
     }
 
@@ -37,7 +55,44 @@ public class BuildProgressService {
     }
 
     public void completeFailed(String projectPath, String message) {
-        emit(projectPath, BuildProgressStatusEnum.FAILED, 100, "failed", message);
+        emit(projectPath, BuildProgressStatusEnum.FAILED, 100, "failed", message, null, getLogTail(projectPath));
+    }
+
+    /**
+     * 构建结束（无论成功、失败或异常），释放输出日志尾部
+     */
+    public void finishBuild(String projectPath) {
+        logTailMap.remove(normalizeKey(projectPath));
+    }
+
+    /**
+     * 追加一行构建输出（只保留最近的若干行，用于失败诊断；不在构建中时忽略，如 watch 进程的空闲输出）
+     */
+    public void appendLog(String projectPath, String line) {
+        Deque<String> tail = logTailMap.get(normalizeKey(projectPath));
+        if (tail == null) {
+            return;
+        }
+        String safeLine = line.length() > LOG_LINE_MAX_LENGTH ? line.substring(0, LOG_LINE_MAX_LENGTH) + "..." : line;
+        synchronized (tail) {
+            tail.addLast(safeLine);
+            while (tail.size() > LOG_TAIL_LINES) {
+                tail.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * 最近一次构建的输出日志尾部
+     */
+    public List<String> getLogTail(String projectPath) {
+        Deque<String> tail = logTailMap.get(normalizeKey(projectPath));
+        if (tail == null) {
+            return List.of();
+        }
+        synchronized (tail) {
+            return new ArrayList<>(tail);
+        }
     }
 
     public Flux<BuildProgressEvent> watch(String projectPath) {
@@ -58,6 +113,16 @@ public class BuildProgressService {
                       int percent,
                       String step,
                       String message) {
+        emit(projectPath, status, percent, step, message, null, null);
+    }
+
+    private void emit(String projectPath,
+                      BuildProgressStatusEnum status,
+                      int percent,
+                      String step,
+                      String message,
+                      Integer queuePosition,
+                      List<String> logTail) {
         String key = normalizeKey(projectPath);
         int safePercent = Math.max(0, Math.min(100, percent));
         BuildProgressEvent event = BuildProgressEvent.builder()
@@ -65,6 +130,8 @@ public class BuildProgressService {
                 .step(step)
                 .percent(safePercent)
                 .message(message)
+                .queuePosition(queuePosition)
+                .logTail(logTail)
                 .build();
         latestEventMap.put(key, event);
         Sinks.Many<BuildProgressEvent> sink = sinkMap.computeIfAbsent(key, k -> Sinks.many().replay().latest());
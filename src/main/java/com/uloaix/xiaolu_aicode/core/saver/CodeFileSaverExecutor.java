@@ -2,6 +2,7 @@ package com.uloaix.xiaolu_aicode.core.saver;
 
 import com.uloaix.xiaolu_aicode.ai.model.HtmlCodeResult;
 import com.uloaix.xiaolu_aicode.ai.model.MultiFileCodeResult;
+import com.uloaix.xiaolu_aicode.core.parser.CodeBlock;
 import com.uloaix.xiaolu_aicode.exception.BusinessException;
 import com.uloaix.xiaolu_aicode.exception.ErrorCode;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
@@ -35,4 +36,35 @@ public class CodeFileSaverExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
+
+    /**
+     * 解析代码块对应的文件名
+     *
+     * @param language    代码块语言
+     * @param codeGenType 代码生成类型
+     * @return 文件名，不属于当前类型的代码块返回 null
+     */
+    public static String resolveFileName(String language, CodeGenTypeEnum codeGenType) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.resolveFileName(language);
+            case MULTI_FILE -> multiFileCodeFileSaver.resolveFileName(language);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
+
+    /**
+     * 增量保存单个代码块
+     *
+     * @param codeBlock   代码块
+     * @param codeGenType 代码生成类型
+     * @param appId       应用id
+     * @return 写入的文件名，未写入返回 null
+     */
+    public static String executeBlockSaver(CodeBlock codeBlock, CodeGenTypeEnum codeGenType, Long appId) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.saveCodeBlock(codeBlock, appId);
+            case MULTI_FILE -> multiFileCodeFileSaver.saveCodeBlock(codeBlock, appId);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
 }
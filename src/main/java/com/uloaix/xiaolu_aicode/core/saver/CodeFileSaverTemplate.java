@@ -3,15 +3,21 @@ package com.uloaix.xiaolu_aicode.core.saver;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.core.parser.CodeBlock;
 import com.uloaix.xiaolu_aicode.exception.BusinessException;
 import com.uloaix.xiaolu_aicode.exception.ErrorCode;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.service.AppVersionService;
 import com.uloaix.xiaolu_aicode.utils.AppVersionPathUtils;
 import com.uloaix.xiaolu_aicode.utils.SpringContextUtil;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * 抽象代码文件保存器 - 模板方法模式
@@ -23,6 +29,9 @@ public abstract class CodeFileSaverTemplate<T> {
     // 文件保存根目录
     protected static final String FILE_SAVE_ROOT_DIR = AppConstant.CODE_OUTPUT_ROOT_DIR;
 
+    // HTML 入口文件名
+    public static final String HTML_FILE_NAME = "index.html";
+
 
     /**
      * 模板方法：保存代码的标准流程
@@ -38,8 +47,37 @@ public abstract class CodeFileSaverTemplate<T> {
         String baseDirPath = buildUniqueDir(appId);
         // 3. 保存文件（具体实现由子类提供）
         saveFiles(result, baseDirPath);
-        // 4. 返回目录文件对象
-        return new File(baseDirPath);
+        // 4. 更新版本清单
+        File baseDir = new File(baseDirPath);
+        File[] savedFiles = baseDir.listFiles(File::isFile);
+        if (savedFiles != null) {
+            for (File savedFile : savedFiles) {
+                recordFileWrite(appId, savedFile);
+            }
+        }
+        // 5. 返回目录文件对象
+        return baseDir;
+    }
+
+    /**
+     * 增量保存单个代码块（流式生成时，代码块闭合后立即落盘）
+     *
+     * @param codeBlock 代码块
+     * @param appId     应用id
+     * @return 写入的文件名，代码块语言不属于当前类型或内容为空时返回 null
+     */
+    public final String saveCodeBlock(CodeBlock codeBlock, Long appId) {
+        if (codeBlock == null || StrUtil.isBlank(codeBlock.content())) {
+            return null;
+        }
+        String fileName = resolveFileName(codeBlock.language());
+        if (fileName == null) {
+            return null;
+        }
+        String baseDirPath = buildUniqueDir(appId);
+        writeToFile(baseDirPath, fileName, codeBlock.content().trim());
+        recordFileWrite(appId, new File(baseDirPath, fileName));
+        return fileName;
     }
 
     /**
@@ -69,6 +107,21 @@ public abstract class CodeFileSaverTemplate<T> {
         return dirPath;
     }
 
+    /**
+     * 记录写入的文件到版本清单（失败不影响保存）
+     */
+    private void recordFileWrite(Long appId, File file) {
+        try {
+            CodeBlobStoreManager codeBlobStoreManager = SpringContextUtil.getBean(CodeBlobStoreManager.class);
+            if (codeBlobStoreManager != null && file.isFile()) {
+                byte[] content = Files.readAllBytes(file.toPath());
+                codeBlobStoreManager.recordFileWrite(getCodeType(), appId, resolveActiveVersion(appId),
+                        file.getName(), content, file.toPath());
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
     private int resolveActiveVersion(Long appId) {
         try {
             AppVersionService appVersionService = SpringContextUtil.getBean(AppVersionService.class);
@@ -90,8 +143,12 @@ public abstract class CodeFileSaverTemplate<T> {
      */
     protected final void writeToFile(String dirPath, String filename, String content) {
         if (StrUtil.isNotBlank(content)) {
-            String filePath = dirPath + File.separator + filename;
-            FileUtil.writeString(content, filePath, StandardCharsets.UTF_8);
+            // 原子替换：版本目录中的文件可能是与其它版本共享的硬链接
+            try {
+                VersionFileUtils.writeAtomically(Paths.get(dirPath, filename), content.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存文件失败: " + filename);
+            }
         }
     }
 
@@ -102,6 +159,14 @@ public abstract class CodeFileSaverTemplate<T> {
      */
     protected abstract CodeGenTypeEnum getCodeType();
 
+    /**
+     * 根据代码块语言解析目标文件名（由子类实现）
+     *
+     * @param language 代码块语言（小写）
+     * @return 文件名，不支持的语言返回 null
+     */
+    public abstract String resolveFileName(String language);
+
     /**
      * 保存文件的具体实现（由子类实现）
      *
@@ -18,6 +18,20 @@ public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeRes
     protected CodeGenTypeEnum getCodeType() {
         return CodeGenTypeEnum.HTML;
     }
+    /**
+     * 单文件模式下 html / htm 与未标注语言的代码块都视为页面
+     */
+    @Override
+    public String resolveFileName(String language) {
+        if (language == null) {
+            return null;
+        }
+        return switch (language) {
+            case "html", "htm", "" -> HTML_FILE_NAME;
+            default -> null;
+        };
+    }
+
     /**
      * 保存 HTML 文件
      * @param result 代码结果对象
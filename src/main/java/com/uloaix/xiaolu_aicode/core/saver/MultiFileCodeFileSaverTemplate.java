@@ -18,6 +18,19 @@ public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiF
         return CodeGenTypeEnum.MULTI_FILE;
     }
 
+    @Override
+    public String resolveFileName(String language) {
+        if (language == null) {
+            return null;
+        }
+        return switch (language) {
+            case "html" -> HTML_FILE_NAME;
+            case "css" -> "style.css";
+            case "js", "javascript" -> "script.js";
+            default -> null;
+        };
+    }
+
     @Override
     protected void saveFiles(MultiFileCodeResult result, String baseDirPath) {
         // 保存 HTML 文件
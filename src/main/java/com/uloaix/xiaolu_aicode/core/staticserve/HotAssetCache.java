@@ -0,0 +1,187 @@
+package com.uloaix.xiaolu_aicode.core.staticserve;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uloaix.xiaolu_aicode.config.HotAssetCacheConfig;
+import com.uloaix.xiaolu_aicode.event.AppDeployedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 部署站点热点资源缓存
+ * <p>
+ * 热门应用的 index.html 与打包文件会被反复访问，小文件连同预压缩副本整体读入堆外内存（direct ByteBuffer），
+ * 命中时不再 stat / open 文件：
+ * <ul>
+ *     <li>Caffeine 按字节数限制总大小，淘汰策略为 W-TinyLFU，偶发访问的冷文件不会挤掉热点文件</li>
+ *     <li>缓存键为 deployKey + 文件所在 release 的真实路径，条目记录加载时的修改时间（用于 ETag / Last-Modified）；
+ *     release 发布后不再修改，切换 release 后请求自然落到新的缓存键</li>
+ *     <li>重新部署时按 deployKey 整体失效，及时释放旧 release 占用的内存；缓存键带失效代数，
+ *     失效前已开始的加载即使在失效后写入，也不会再被命中</li>
+ *     <li>命中率等指标见 /actuator/metrics/cache.gets?tag=cache:staticHotAsset</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class HotAssetCache {
+
+    @Resource
+    private HotAssetCacheConfig hotAssetCacheConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<AssetKey, CachedAsset> cache;
+
+    private long maxEntryBytes;
+
+    /**
+     * 部署站点的失效代数（每次失效加一）
+     */
+    private final ConcurrentMap<String, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存键（filePath 为 release 目录中的真实路径，release 内容不可变）
+     */
+    private record AssetKey(String deployKey, long generation, String filePath) {
+    }
+
+    /**
+     * 一种编码的资源内容（encoding 为 null 表示未压缩）
+     */
+    public record Variant(String encoding, ByteBuffer content, long lastModified, String etag) {
+    }
+
+    /**
+     * 缓存的资源，variants 按发送优先级排列，最后一个为未压缩内容
+     */
+    public record CachedAsset(List<Variant> variants) {
+
+        /**
+         * 按 Accept-Encoding 选择内容
+         */
+        public Variant select(String acceptEncoding) {
+            for (Variant variant : variants) {
+                if (variant.encoding() == null
+                        || (acceptEncoding != null && StaticFileServer.acceptsEncoding(acceptEncoding, variant.encoding()))) {
+                    return variant;
+                }
+            }
+            return variants.get(variants.size() - 1);
+        }
+
+        private int weight() {
+            long bytes = 0;
+            for (Variant variant : variants) {
+                bytes += variant.content().capacity();
+            }
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        maxEntryBytes = hotAssetCacheConfig.getMaxEntryKb() * 1024;
+        cache = Caffeine.newBuilder()
+                .maximumWeight(hotAssetCacheConfig.getMaxSizeMb() * 1024 * 1024)
+                .weigher((AssetKey key, CachedAsset asset) -> asset.weight())
+                .expireAfterAccess(Duration.ofMinutes(hotAssetCacheConfig.getExpireAfterAccessMinutes()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "staticHotAsset");
+        Gauge.builder("static.hot.asset.bytes", cache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .description("热点资源缓存占用的堆外内存字节数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取缓存的资源，未缓存时从磁盘加载
+     *
+     * @param deployKey    部署标识
+     * @param resourcePath 资源路径
+     * @param file         资源文件
+     * @return 缓存的资源；未开启缓存、文件不存在或超过单文件上限时返回 null
+     */
+    public CachedAsset get(String deployKey, String resourcePath, File file) {
+        if (!hotAssetCacheConfig.isEnabled()) {
+            return null;
+        }
+        long generation = generations.getOrDefault(deployKey, 0L);
+        return cache.get(new AssetKey(deployKey, generation, file.getPath()), key -> load(file, resourcePath));
+    }
+
+    /**
+     * 使部署站点的全部缓存失效
+     */
+    public void invalidate(String deployKey) {
+        // 先推进代数，正在进行的加载写入的是旧键
+        generations.merge(deployKey, 1L, Long::sum);
+        if (cache != null) {
+            cache.asMap().keySet().removeIf(key -> key.deployKey().equals(deployKey));
+        }
+    }
+
+    /**
+     * 重新部署后失效旧内容
+     */
+    @EventListener
+    public void onDeployed(AppDeployedEvent event) {
+        invalidate(event.deployKey());
+    }
+
+    private CachedAsset load(File file, String resourcePath) {
+        long length = file.length();
+        if (!file.isFile() || length > maxEntryBytes) {
+            return null;
+        }
+        try {
+            List<Variant> variants = new ArrayList<>(3);
+            if (MimeTypes.isCompressible(resourcePath)) {
+                for (String encoding : StaticFileServer.PRECOMPRESSED_ENCODINGS) {
+                    File variantFile = new File(file.getPath() + StaticFileServer.ENCODING_SUFFIXES.get(encoding));
+                    if (variantFile.isFile()) {
+                        variants.add(read(variantFile, encoding));
+                    }
+                }
+            }
+            variants.add(read(file, null));
+            return new CachedAsset(List.copyOf(variants));
+        } catch (IOException e) {
+            log.warn("加载热点资源失败: {}, {}", file.getPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Variant read(File file, String encoding) throws IOException {
+        long lastModified = file.lastModified();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满为止
+            }
+            buffer.flip();
+            ByteBuffer content = buffer.asReadOnlyBuffer();
+            return new Variant(encoding, content, lastModified,
+                    StaticFileServer.buildEtag(content.remaining(), lastModified, encoding));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.uloaix.xiaolu_aicode.core.staticserve;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 静态资源 Content-Type 映射表
+ * <p>
+ * 覆盖生成站点常见的网页、脚本、样式、图片、字体、音视频与文档类型；文本类型统一附带 UTF-8 编码。
+ */
+public final class MimeTypes {
+
+    public static final String DEFAULT_TYPE = "application/octet-stream";
+
+    private static final Map<String, String> TYPES = new HashMap<>();
+
+    /**
+     * 需要附带字符编码的类型
+     */
+    private static final Set<String> CHARSET_TYPES = Set.of(
+            "application/javascript", "application/json", "application/manifest+json", "application/ld+json",
+            "application/xml", "application/xhtml+xml", "application/rss+xml", "application/atom+xml",
+            "image/svg+xml"
+    );
+
+    /**
+     * 文本之外值得压缩的类型
+     */
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "application/wasm", "image/x-icon", "image/bmp", "font/ttf", "font/otf", "application/vnd.ms-fontobject"
+    );
+
+    static {
+        // 网页与脚本
+        register("text/html", "html", "htm", "shtml");
+        register("application/xhtml+xml", "xhtml");
+        register("text/css", "css");
+        register("application/javascript", "js", "mjs", "cjs");
+        register("application/json", "json", "map");
+        register("application/manifest+json", "webmanifest");
+        register("application/ld+json", "jsonld");
+        register("application/wasm", "wasm");
+        // 文本
+        register("text/plain", "txt", "text", "log", "ini", "conf");
+        register("text/markdown", "md", "markdown");
+        register("text/csv", "csv");
+        register("text/tab-separated-values", "tsv");
+        register("text/calendar", "ics");
+        register("text/vtt", "vtt");
+        register("text/yaml", "yaml", "yml");
+        register("application/xml", "xml", "xsl", "xsd");
+        register("application/rss+xml", "rss");
+        register("application/atom+xml", "atom");
+        // 图片
+        register("image/png", "png");
+        register("image/jpeg", "jpg", "jpeg", "jpe", "jfif");
+        register("image/gif", "gif");
+        register("image/webp", "webp");
+        register("image/avif", "avif");
+        register("image/apng", "apng");
+        register("image/svg+xml", "svg");
+        register("image/x-icon", "ico", "cur");
+        register("image/bmp", "bmp");
+        register("image/tiff", "tif", "tiff");
+        register("image/heic", "heic");
+        register("image/heif", "heif");
+        // 字体
+        register("font/woff", "woff");
+        register("font/woff2", "woff2");
+        register("font/ttf", "ttf");
+        register("font/otf", "otf");
+        register("application/vnd.ms-fontobject", "eot");
+        // 音视频
+        register("audio/mpeg", "mp3");
+        register("audio/ogg", "ogg", "oga", "opus");
+        register("audio/wav", "wav");
+        register("audio/aac", "aac");
+        register("audio/flac", "flac");
+        register("audio/webm", "weba");
+        register("audio/mp4", "m4a");
+        register("video/mp4", "mp4", "m4v");
+        register("video/webm", "webm");
+        register("video/ogg", "ogv");
+        register("video/quicktime", "mov");
+        register("video/x-msvideo", "avi");
+        register("video/mp2t", "ts");
+        register("application/vnd.apple.mpegurl", "m3u8");
+        // 文档与压缩包
+        register("application/pdf", "pdf");
+        register("application/zip", "zip");
+        register("application/gzip", "gz");
+        register("application/x-tar", "tar");
+        register("application/x-7z-compressed", "7z");
+        register("application/msword", "doc");
+        register("application/vnd.openxmlformats-officedocument.wordprocessingml.document", "docx");
+        register("application/vnd.ms-excel", "xls");
+        register("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+        register("application/vnd.ms-powerpoint", "ppt");
+        register("application/vnd.openxmlformats-officedocument.presentationml.presentation", "pptx");
+        register("application/rtf", "rtf");
+        register("application/epub+zip", "epub");
+        // 3D 模型
+        register("model/gltf+json", "gltf");
+        register("model/gltf-binary", "glb");
+    }
+
+    private MimeTypes() {
+    }
+
+    private static void register(String type, String... extensions) {
+        for (String extension : extensions) {
+            TYPES.put(extension, type);
+        }
+    }
+
+    /**
+     * 根据文件名返回 Content-Type（文本类型附带 charset=UTF-8）
+     *
+     * @param fileName 文件名或资源路径
+     * @return Content-Type，未知扩展名返回 application/octet-stream
+     */
+    public static String contentType(String fileName) {
+        String type = TYPES.getOrDefault(extension(fileName), DEFAULT_TYPE);
+        if (type.startsWith("text/") || CHARSET_TYPES.contains(type)) {
+            return type + "; charset=UTF-8";
+        }
+        return type;
+    }
+
+    /**
+     * 是否值得压缩（文本、脚本、样式、svg 等；图片、字体 woff2、音视频本身已压缩）
+     *
+     * @param fileName 文件名或资源路径
+     */
+    public static boolean isCompressible(String fileName) {
+        String type = TYPES.get(extension(fileName));
+        if (type == null) {
+            return false;
+        }
+        return type.startsWith("text/") || CHARSET_TYPES.contains(type) || COMPRESSIBLE_TYPES.contains(type);
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int slash = fileName.lastIndexOf('/');
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= slash + 1 || dot == fileName.length() - 1) {
+            return "";
+        }
+        return fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,416 @@
+package com.uloaix.xiaolu_aicode.core.staticserve;
+
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 静态文件响应引擎
+ * <p>
+ * 直接写 HttpServletResponse，不经过消息转换器：
+ * <ul>
+ *     <li>强 ETag（mtime + size）与 Last-Modified，命中 If-None-Match / If-Modified-Since 时返回 304</li>
+ *     <li>Vue 项目构建产物中的带哈希文件（assets/xxx-[hash].js）使用一年的 immutable 缓存，其余文件（包括 HTML /
+ *     多文件生成的代码，文件名由模型决定）每次协商</li>
+ *     <li>支持单段 Range 请求（206 / 416），If-Range 校验不通过时返回完整内容</li>
+ *     <li>大文件交给 Tomcat sendfile 零拷贝发送，其余通过 FileChannel.transferTo 写出</li>
+ *     <li>部署站点按 Accept-Encoding 选择部署时生成的 .br / .gz 副本，请求时不做压缩</li>
+ *     <li>部署站点的小文件由 {@link HotAssetCache} 从堆外内存直接发送</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class StaticFileServer {
+
+    /**
+     * vite 默认产物命名：assets/[name]-[hash].[ext]，哈希为 8 位 base64url 字符
+     * （要求至少包含一个数字或大写字母，避免把 assets/my-component.js 这类普通文件误判为带哈希）
+     */
+    private static final Pattern HASHED_ASSET_PATTERN =
+            Pattern.compile("(^|/)assets/(?:.+/)?[^/]+[-.](?=[A-Za-z0-9_-]{0,7}[A-Z0-9])[A-Za-z0-9_-]{8}\\.[A-Za-z0-9]+$");
+
+    /**
+     * 预压缩副本按优先级排列：brotli 体积更小，优先发送
+     */
+    static final List<String> PRECOMPRESSED_ENCODINGS = List.of("br", "gzip");
+
+    static final Map<String, String> ENCODING_SUFFIXES = Map.of("br", ".br", "gzip", ".gz");
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final String REVALIDATE_CACHE_CONTROL = "no-cache";
+
+    /**
+     * Tomcat sendfile 请求属性（NIO 连接器默认开启）
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 不小于该大小的文件才使用 sendfile（与 Tomcat DefaultServlet 的默认阈值一致）
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    @Resource
+    private HotAssetCache hotAssetCache;
+
+    /**
+     * 字节范围（闭区间）
+     */
+    public record ByteRange(long start, long end) {
+
+        public long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * 输出静态文件
+     *
+     * @param file         磁盘文件（内容存储中的 blob 文件名不含扩展名）
+     * @param resourcePath 请求的资源路径，用于推断 Content-Type 与缓存策略
+     * @param viteBuild    站点是否为 vite 构建产物（只有构建产物的带哈希文件使用 immutable 缓存）
+     * @param request      请求
+     * @param response     响应
+     */
+    public void serve(File file, String resourcePath, boolean viteBuild,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(file, resourcePath, false, viteBuild, request, response);
+    }
+
+    /**
+     * 输出静态文件
+     *
+     * @param file          磁盘文件（内容存储中的 blob 文件名不含扩展名）
+     * @param resourcePath  请求的资源路径，用于推断 Content-Type 与缓存策略
+     * @param precompressed 文件旁是否可能有预压缩副本（部署目录）
+     * @param viteBuild     站点是否为 vite 构建产物
+     * @param request       请求
+     * @param response      响应
+     */
+    private void serve(File file, String resourcePath, boolean precompressed, boolean viteBuild,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String encoding = null;
+        if (precompressed && MimeTypes.isCompressible(resourcePath)) {
+            response.setHeader("Vary", "Accept-Encoding");
+            String acceptEncoding = request.getHeader("Accept-Encoding");
+            if (acceptEncoding != null) {
+                for (String candidate : PRECOMPRESSED_ENCODINGS) {
+                    File variant = new File(file.getPath() + ENCODING_SUFFIXES.get(candidate));
+                    if (acceptsEncoding(acceptEncoding, candidate) && variant.isFile()) {
+                        file = variant;
+                        encoding = candidate;
+                        break;
+                    }
+                }
+            }
+        }
+        File body = file;
+        long length = body.length();
+        long lastModified = body.lastModified();
+        respond(resourcePath, viteBuild, encoding, length, lastModified, buildEtag(length, lastModified, encoding), request, response,
+                (start, count) -> {
+                    if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+                        // 由连接器在请求结束后直接从文件发送到 socket
+                        request.setAttribute(SENDFILE_FILENAME_ATTR, body.getCanonicalPath());
+                        request.setAttribute(SENDFILE_START_ATTR, start);
+                        request.setAttribute(SENDFILE_END_ATTR, start + count);
+                        return;
+                    }
+                    transfer(body, start, count, response.getOutputStream());
+                });
+    }
+
+    /**
+     * 输出部署站点资源：小文件优先从热点缓存发送（不访问磁盘），未缓存的按文件发送
+     *
+     * @param deployKey    部署标识
+     * @param file         部署目录中的文件
+     * @param resourcePath 请求的资源路径
+     * @param viteBuild    站点是否为 vite 构建产物
+     * @param request      请求
+     * @param response     响应
+     * @return 资源是否存在
+     */
+    public boolean serveDeployed(String deployKey, File file, String resourcePath, boolean viteBuild,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HotAssetCache.CachedAsset asset = hotAssetCache.get(deployKey, resourcePath, file);
+        if (asset == null) {
+            if (!file.isFile()) {
+                return false;
+            }
+            serve(file, resourcePath, true, viteBuild, request, response);
+            return true;
+        }
+        if (MimeTypes.isCompressible(resourcePath)) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        HotAssetCache.Variant variant = asset.select(request.getHeader("Accept-Encoding"));
+        ByteBuffer content = variant.content();
+        respond(resourcePath, viteBuild, variant.encoding(), content.remaining(), variant.lastModified(), variant.etag(), request, response,
+                (start, count) -> {
+                    // 每个请求使用独立的视图，共享同一块堆外内存
+                    ByteBuffer slice = content.duplicate();
+                    slice.position((int) start).limit((int) (start + count));
+                    WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+                    while (slice.hasRemaining()) {
+                        target.write(slice);
+                    }
+                });
+        return true;
+    }
+
+    /**
+     * 响应体写出方式
+     */
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(long start, long count) throws IOException;
+    }
+
+    /**
+     * 写响应头并处理条件请求与 Range，需要响应体时交给 bodyWriter
+     */
+    private void respond(String resourcePath, boolean viteBuild, String encoding, long length, long lastModified, String etag,
+                         HttpServletRequest request, HttpServletResponse response, BodyWriter bodyWriter) throws IOException {
+        if (encoding != null) {
+            response.setHeader("Content-Encoding", encoding);
+        }
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        boolean immutable = viteBuild && isImmutableAsset(resourcePath);
+        response.setHeader("Cache-Control", immutable ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setContentType(MimeTypes.contentType(resourcePath));
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteRange range = null;
+        String rangeHeader = request.getHeader("Range");
+        if (rangeHeader != null && matchesIfRange(request.getHeader("If-Range"), etag, lastModified)) {
+            range = parseRange(rangeHeader, length);
+            if (range == null && isSingleByteRange(rangeHeader)) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + length);
+                return;
+            }
+        }
+        long start = range != null ? range.start() : 0;
+        long count = range != null ? range.length() : length;
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + range.start() + "-" + range.end() + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count == 0) {
+            return;
+        }
+        bodyWriter.write(start, count);
+    }
+
+    private void transfer(File file, long start, long count, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    // 文件在发送过程中被截断
+                    log.warn("静态文件发送提前结束: {}", file.getPath());
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    /**
+     * 构建强 ETag（与 nginx 相同的 "mtime-size" 形式）
+     */
+    public static String buildEtag(long length, long lastModified) {
+        return buildEtag(length, lastModified, null);
+    }
+
+    /**
+     * 构建强 ETag，压缩副本追加编码后缀，与原文件及其它编码的 ETag 区分
+     */
+    static String buildEtag(long length, long lastModified, String encoding) {
+        String suffix = encoding == null ? "" : "-" + encoding;
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + suffix + "\"";
+    }
+
+    /**
+     * 解析 Accept-Encoding，判断是否接受指定编码（q=0 表示拒绝，* 匹配未列出的编码）
+     */
+    public static boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        Boolean wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (coding.equals(encoding) || ("gzip".equals(encoding) && "x-gzip".equals(coding))) {
+                return accepted;
+            }
+            if ("*".equals(coding)) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * 是否为带内容哈希的构建产物（内容变化时文件名随之变化，可永久缓存）
+     */
+    public static boolean isImmutableAsset(String resourcePath) {
+        return resourcePath != null && HASHED_ASSET_PATTERN.matcher(resourcePath).find();
+    }
+
+    /**
+     * 条件请求校验：If-None-Match 优先，其次 If-Modified-Since（秒级精度）
+     */
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-None-Match 使用弱比较：忽略 W/ 前缀
+     */
+    public static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value)) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Range 使用强比较：ETag 必须完全一致，日期必须与 Last-Modified 相同
+     */
+    private boolean matchesIfRange(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(etag);
+        }
+        try {
+            long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return date / 1000 == lastModified / 1000;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析单段 Range 请求头
+     * <p>
+     * 支持 bytes=a-b、bytes=a-、bytes=-n 三种形式；多段范围或无法解析时返回 null（按完整内容响应），
+     * 范围超出文件大小时同样返回 null，由调用方结合 {@link #isSingleByteRange} 判断是否返回 416。
+     *
+     * @param rangeHeader Range 请求头
+     * @param length      文件大小
+     * @return 闭区间范围，无法满足时返回 null
+     */
+    public static ByteRange parseRange(String rangeHeader, long length) {
+        if (!isSingleByteRange(rangeHeader)) {
+            return null;
+        }
+        String spec = rangeHeader.trim().substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        String startText = spec.substring(0, dash).trim();
+        String endText = spec.substring(dash + 1).trim();
+        try {
+            if (startText.isEmpty()) {
+                long suffix = Long.parseLong(endText);
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(startText);
+            long end = endText.isEmpty() ? length - 1 : Math.min(Long.parseLong(endText), length - 1);
+            if (start >= length || end < start) {
+                return null;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 是否为语法合法的单段字节范围
+     */
+    public static boolean isSingleByteRange(String rangeHeader) {
+        if (rangeHeader == null) {
+            return false;
+        }
+        String value = rangeHeader.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return false;
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        return dash >= 0 && spec.length() > 1
+                && spec.substring(0, dash).trim().chars().allMatch(Character::isDigit)
+                && spec.substring(dash + 1).trim().chars().allMatch(Character::isDigit);
+    }
+}
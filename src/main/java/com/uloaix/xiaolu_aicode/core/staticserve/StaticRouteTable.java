@@ -0,0 +1,217 @@
+package com.uloaix.xiaolu_aicode.core.staticserve;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mybatisflex.core.query.QueryWrapper;
+import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.event.AppDeployedEvent;
+import com.uloaix.xiaolu_aicode.event.AppVersionChangedEvent;
+import com.uloaix.xiaolu_aicode.mapper.AppMapper;
+import com.uloaix.xiaolu_aicode.model.entity.App;
+import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
+import com.uloaix.xiaolu_aicode.service.AppVersionService;
+import com.uloaix.xiaolu_aicode.utils.AppVersionPathUtils;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 静态资源路由表
+ * <p>
+ * 把访问路径中的 deployKey / 预览标识（{@code vue_project_123}、{@code html_123_v4}）解析为站点根目录，
+ * 解析结果按标识缓存，同一页面的后续资源请求 O(1) 命中，不再解析标识、也不再查询版本服务：
+ * <ul>
+ *     <li>新建版本、生成完成 / 失败、回滚时按 appId 失效（{@link AppVersionChangedEvent}，事务提交后处理）</li>
+ *     <li>部署标识解析为当前 release 的真实目录，重新部署时失效（{@link AppDeployedEvent}）</li>
+ *     <li>失效与加载并发时丢弃加载结果，不会把旧版本写回路由表</li>
+ * </ul>
+ */
+@Component
+public class StaticRouteTable {
+
+    /**
+     * 应用生成根目录（用于浏览）
+     */
+    private static final String PREVIEW_ROOT_DIR = AppConstant.CODE_OUTPUT_ROOT_DIR;
+
+    /**
+     * 预览标识前缀 → 生成类型
+     */
+    private static final Map<String, CodeGenTypeEnum> PREVIEW_PREFIXES = Arrays.stream(CodeGenTypeEnum.values())
+            .collect(Collectors.toUnmodifiableMap(typeEnum -> typeEnum.getValue() + "_", Function.identity()));
+
+    @Resource
+    private AppVersionService appVersionService;
+
+    @Resource
+    private AppMapper appMapper;
+
+    /**
+     * 路由缓存
+     */
+    private final Cache<String, Route> routes = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 失效计数：加载期间发生失效时不写入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 站点路由
+     *
+     * @param baseDir     站点根目录（Vue 项目预览为 dist 目录）
+     * @param preview     是否为预览标识
+     * @param codeGenType 生成类型（部署站点查不到应用时为 null）
+     * @param appId       应用 ID（仅预览）
+     * @param version     解析出的版本号（仅预览，0 表示未知）
+     */
+    public record Route(String baseDir, boolean preview, CodeGenTypeEnum codeGenType, Long appId, int version) {
+
+        public boolean isVuePreview() {
+            return preview && codeGenType == CodeGenTypeEnum.VUE_PROJECT;
+        }
+
+        /**
+         * 站点内容是否为 vite 构建产物：只有构建产物中的带哈希文件名才按内容寻址，可以永久缓存
+         */
+        public boolean isViteBuild() {
+            return codeGenType == CodeGenTypeEnum.VUE_PROJECT;
+        }
+
+        /**
+         * 已提交版本的非 Vue 预览直接读取内容存储中的 blob
+         */
+        public boolean isBlobBacked() {
+            return preview && !isVuePreview() && appId != null && version > 0;
+        }
+    }
+
+    /**
+     * 解析站点路由
+     *
+     * @param key             访问路径中的 deployKey 或预览标识
+     * @param versionOverride 请求参数中指定的版本（为 null 时使用标识中的版本或当前活动版本）
+     * @return 站点路由
+     */
+    public Route resolve(String key, Integer versionOverride) {
+        Route route = routes.getIfPresent(key);
+        if (route == null) {
+            long expected = generation.get();
+            route = load(key);
+            if (generation.get() == expected) {
+                routes.put(key, route);
+            }
+        }
+        if (versionOverride != null && route.preview() && route.appId() != null && versionOverride != route.version()) {
+            return buildPreviewRoute(key, route.codeGenType(), route.appId(), versionOverride);
+        }
+        return route;
+    }
+
+    /**
+     * 版本变化时失效该应用的全部预览路由
+     * <p>
+     * 事件在版本事务中发布，提交后才失效：提交前失效的话，并发请求重新加载只能读到旧的当前版本，又会被写回路由表
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVersionChanged(AppVersionChangedEvent event) {
+        generation.incrementAndGet();
+        routes.asMap().values().removeIf(route -> event.appId().equals(route.appId()));
+    }
+
+    /**
+     * 重新部署时失效部署路由
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeployed(AppDeployedEvent event) {
+        generation.incrementAndGet();
+        routes.invalidate(event.deployKey());
+    }
+
+    private Route load(String key) {
+        int separator = key.lastIndexOf('_');
+        CodeGenTypeEnum codeGenType = null;
+        String rest = null;
+        // 类型值本身可能含下划线（vue_project），逐个尝试前缀
+        while (separator > 0) {
+            codeGenType = PREVIEW_PREFIXES.get(key.substring(0, separator + 1));
+            if (codeGenType != null) {
+                rest = key.substring(separator + 1);
+                break;
+            }
+            separator = key.lastIndexOf('_', separator - 1);
+        }
+        if (codeGenType == null) {
+            return new Route(resolveDeployDir(key), false, findDeployedCodeGenType(key), null, 0);
+        }
+        Long appId = null;
+        Integer version = null;
+        int versionIndex = rest.indexOf("_v");
+        String appIdText = versionIndex >= 0 ? rest.substring(0, versionIndex) : rest;
+        if (versionIndex >= 0) {
+            try {
+                version = Integer.parseInt(rest.substring(versionIndex + 2));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        try {
+            appId = Long.parseLong(appIdText);
+        } catch (NumberFormatException ignored) {
+        }
+        if (version == null && appId != null) {
+            version = appVersionService.resolveActiveVersion(appId);
+        }
+        return buildPreviewRoute(key, codeGenType, appId, version == null ? 0 : version);
+    }
+
+    /**
+     * 部署目录是指向当前 release 的符号链接，解析为真实目录：
+     * 同一 release 内的文件内容不变，热点缓存按真实路径缓存，切换 release 后自然使用新的缓存键
+     */
+    private String resolveDeployDir(String key) {
+        Path deployDir = Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR, key);
+        try {
+            return deployDir.toRealPath().toString();
+        } catch (IOException e) {
+            // 尚未部署
+            return deployDir.toString();
+        }
+    }
+
+    /**
+     * 部署站点的生成类型（按 deployKey 查询应用）
+     */
+    private CodeGenTypeEnum findDeployedCodeGenType(String deployKey) {
+        App app = appMapper.selectOneByQuery(QueryWrapper.create()
+                .select("codeGenType")
+                .eq("deployKey", deployKey));
+        return app == null ? null : CodeGenTypeEnum.getEnumByValue(app.getCodeGenType());
+    }
+
+    private Route buildPreviewRoute(String key, CodeGenTypeEnum codeGenType, Long appId, int version) {
+        String baseDir;
+        if (appId != null && version > 0) {
+            baseDir = AppVersionPathUtils.buildVersionDir(codeGenType, appId, version);
+        } else {
+            baseDir = PREVIEW_ROOT_DIR + "/" + key;
+        }
+        if (codeGenType == CodeGenTypeEnum.VUE_PROJECT) {
+            baseDir = baseDir + "/dist";
+        }
+        return new Route(baseDir, true, codeGenType, appId, version);
+    }
+}
@@ -0,0 +1,10 @@
+package com.uloaix.xiaolu_aicode.event;
+
+/**
+ * 应用已部署（部署目录内容已更新）
+ *
+ * @param appId     应用 ID
+ * @param deployKey 部署标识
+ */
+public record AppDeployedEvent(Long appId, String deployKey) {
+}
@@ -0,0 +1,9 @@
+package com.uloaix.xiaolu_aicode.event;
+
+/**
+ * 应用的活动版本发生变化（新建版本、生成完成 / 失败、回滚）
+ *
+ * @param appId 应用 ID
+ */
+public record AppVersionChangedEvent(Long appId) {
+}
@@ -1,5 +1,6 @@
 package com.uloaix.xiaolu_aicode.langgraph4j.node;
 
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessage;
 import com.uloaix.xiaolu_aicode.constant.AppConstant;
 import com.uloaix.xiaolu_aicode.core.AiCodeGeneratorFacade;
 import com.uloaix.xiaolu_aicode.langgraph4j.model.QualityResult;
@@ -39,7 +40,7 @@ public class CodeGeneratorNode {
                 context.setWorkflowRunId(appId);
             }
             // 调用流式代码生成
-            Flux<String> codeStream = codeGeneratorFacade.generateAndSaveCodeStream(userMessage, generationType, appId);
+            Flux<StreamMessage> codeStream = codeGeneratorFacade.generateAndSaveCodeStream(userMessage, generationType, appId);
             // 同步等待流式输出完成
             codeStream.blockLast(Duration.ofMinutes(10)); // 最多等待 10 分钟
             // 根据类型设置生成目录
@@ -0,0 +1,97 @@
+package com.uloaix.xiaolu_aicode.manager;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AI 服务活跃记录管理器
+ * <p>
+ * 用 Redis ZSET 记录各应用最近一次使用 AI 服务的时间（member = appId:服务类型，score = 时间戳），
+ * 多个节点共享，新节点启动时据此预热最近活跃的服务。
+ * <p>
+ * 服务获取是热路径：使用记录先写入本地缓冲，由定时任务合并后一次性写入 Redis，
+ * 同一服务在一个周期内多次使用只写一次。
+ */
+@Slf4j
+@Component
+public class AiServiceActivityManager {
+
+    private static final String ACTIVITY_KEY = "ai:service:activity";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 待写入的使用记录（member → 最近使用时间）
+     */
+    private final Map<String, Long> pendingActivities = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次服务使用（只写本地缓冲，不访问 Redis）
+     *
+     * @param appId       应用ID
+     * @param serviceType 服务类型
+     */
+    public void recordActivity(long appId, String serviceType) {
+        if (appId <= 0) {
+            return;
+        }
+        pendingActivities.put(appId + ":" + serviceType, System.currentTimeMillis());
+    }
+
+    /**
+     * 把缓冲的使用记录批量写入 Redis（失败只记录日志，不影响主流程）
+     */
+    @Scheduled(fixedDelay = 10_000)
+    @PreDestroy
+    public void flushActivities() {
+        if (pendingActivities.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (String member : new ArrayList<>(pendingActivities.keySet())) {
+            Long timestamp = pendingActivities.remove(member);
+            if (timestamp != null) {
+                tuples.add(new DefaultTypedTuple<>(member, timestamp.doubleValue()));
+            }
+        }
+        try {
+            stringRedisTemplate.opsForZSet().add(ACTIVITY_KEY, tuples);
+        } catch (Exception e) {
+            log.warn("记录 AI 服务活跃信息失败，共 {} 条, error: {}", tuples.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 获取最近活跃的服务（按活跃时间倒序），并清理过期记录
+     *
+     * @param recentMillis 时间窗口
+     * @param limit        最大数量
+     * @return member 列表（appId:服务类型）
+     */
+    public List<String> listRecentActivities(long recentMillis, int limit) {
+        long since = System.currentTimeMillis() - recentMillis;
+        try {
+            ZSetOperations<String, String> zSetOps = stringRedisTemplate.opsForZSet();
+            zSetOps.removeRangeByScore(ACTIVITY_KEY, 0, since);
+            Set<String> members = zSetOps.reverseRangeByScore(ACTIVITY_KEY, since, Double.MAX_VALUE, 0, limit);
+            return members == null ? List.of() : new ArrayList<>(members);
+        } catch (Exception e) {
+            log.warn("读取 AI 服务活跃信息失败: {}", e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.uloaix.xiaolu_aicode.manager;
+
+import com.mybatisflex.core.query.QueryWrapper;
+import com.uloaix.xiaolu_aicode.config.AppVersionGcConfig;
+import com.uloaix.xiaolu_aicode.mapper.AppMapper;
+import com.uloaix.xiaolu_aicode.mapper.AppVersionMapper;
+import com.uloaix.xiaolu_aicode.model.entity.App;
+import com.uloaix.xiaolu_aicode.model.entity.AppVersion;
+import com.uloaix.xiaolu_aicode.model.enums.AppVersionStatusEnum;
+import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
+import com.uloaix.xiaolu_aicode.service.AppVersionService;
+import com.uloaix.xiaolu_aicode.utils.AppVersionPathUtils;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 应用版本清理（GC）管理器
+ * <p>
+ * 按应用执行保留策略，删除过期版本的目录（含 node_modules）、清单、版本记录与相关缓存，最后清理无引用的 blob：
+ * <ul>
+ *     <li>始终保留：当前版本、已部署版本、生成中的版本</li>
+ *     <li>已完成版本：保留最近 N 个</li>
+ *     <li>失败版本：超过保留时长后删除</li>
+ *     <li>应用已删除：删除全部版本</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class AppVersionGcManager {
+
+    /**
+     * blob 最短保留时长，避免与正在提交的版本竞争
+     */
+    private static final long BLOB_MIN_AGE_MILLIS = Duration.ofHours(1).toMillis();
+
+    @Resource
+    private AppVersionGcConfig gcConfig;
+
+    @Resource
+    private AppVersionMapper appVersionMapper;
+
+    @Resource
+    private AppMapper appMapper;
+
+    @Resource
+    private CodeBlobStoreManager codeBlobStoreManager;
+
+    @Resource
+    private AppVersionService appVersionService;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private Counter reclaimedBytesCounter;
+
+    private Counter removedVersionsCounter;
+
+    /**
+     * 清理结果
+     *
+     * @param apps            处理的应用数
+     * @param removedVersions 删除的版本数
+     * @param reclaimedBytes  释放的磁盘字节数
+     */
+    public record GcReport(int apps, int removedVersions, long reclaimedBytes) {
+    }
+
+    @PostConstruct
+    public void init() {
+        reclaimedBytesCounter = Counter.builder("app.version.gc.reclaimed.bytes")
+                .description("版本清理释放的磁盘字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        removedVersionsCounter = Counter.builder("app.version.gc.removed.versions")
+                .description("版本清理删除的版本数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定时清理（调度由 ScreenshotConfig 的 @EnableScheduling 开启）
+     * <p>
+     * 调度器只有一个线程，清理交给独立线程执行，避免耗时的删除与 blob 清理阻塞其它定时任务
+     */
+    @Scheduled(cron = "${app-version.gc.cron:0 30 3 * * ?}")
+    public void scheduledGc() {
+        if (!gcConfig.isEnabled()) {
+            return;
+        }
+        Thread.ofVirtual().name("app-version-gc").start(this::runGc);
+    }
+
+    /**
+     * 执行一次版本清理（同一时间只允许一次）
+     *
+     * @return 清理结果，已有清理在执行时返回 null
+     */
+    public GcReport runGc() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("版本清理正在执行，跳过本次");
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        int apps = 0;
+        int removedVersions = 0;
+        long reclaimedBytes = 0;
+        try {
+            long lastAppId = 0;
+            while (true) {
+                List<AppVersion> batch = appVersionMapper.selectListByQuery(QueryWrapper.create()
+                        .select("appId")
+                        .gt("appId", lastAppId)
+                        .groupBy("appId")
+                        .orderBy("appId", true)
+                        .limit(Math.max(1, gcConfig.getBatchSize())));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (AppVersion row : batch) {
+                    lastAppId = row.getAppId();
+                    apps++;
+                    try {
+                        long[] result = gcApp(row.getAppId());
+                        removedVersions += (int) result[0];
+                        reclaimedBytes += result[1];
+                    } catch (Exception e) {
+                        log.warn("清理应用版本失败，appId={}, err={}", row.getAppId(), e.getMessage());
+                    }
+                }
+            }
+            try {
+                reclaimedBytes += codeBlobStoreManager.sweepBlobs(BLOB_MIN_AGE_MILLIS);
+            } catch (Exception e) {
+                log.warn("清理无引用 blob 失败: {}", e.getMessage());
+            }
+            reclaimedBytesCounter.increment(reclaimedBytes);
+            removedVersionsCounter.increment(removedVersions);
+            GcReport report = new GcReport(apps, removedVersions, reclaimedBytes);
+            log.info("版本清理完成，apps={}, removedVersions={}, reclaimed={}MB, cost={}ms",
+                    apps, removedVersions, String.format("%.2f", reclaimedBytes / 1024.0 / 1024.0),
+                    System.currentTimeMillis() - start);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 清理单个应用
+     *
+     * @return [删除的版本数, 释放的字节数]
+     */
+    private long[] gcApp(Long appId) throws Exception {
+        List<AppVersion> versions = appVersionMapper.selectListByQuery(QueryWrapper.create()
+                .eq("appId", appId)
+                .orderBy("version", false));
+        App app = appMapper.selectOneById(appId);
+        List<AppVersion> removable = app == null ? versions : selectRemovable(app, versions);
+        long removed = 0;
+        long reclaimed = 0;
+        for (AppVersion version : removable) {
+            CodeGenTypeEnum codeGenType = CodeGenTypeEnum.getEnumByValue(version.getCodeGenType());
+            if (codeGenType == null || version.getVersion() == null || version.getVersion() <= 0) {
+                continue;
+            }
+            String versionDir = AppVersionPathUtils.buildVersionDir(codeGenType, appId, version.getVersion());
+            reclaimed += VersionFileUtils.deleteDirectory(Paths.get(versionDir));
+            codeBlobStoreManager.deleteManifest(codeGenType, appId, version.getVersion());
+            appVersionMapper.deleteById(version.getId());
+            appVersionService.evictVersionCaches(codeGenType, appId, version.getVersion());
+            removed++;
+        }
+        // 应用已删除：连同未版本化的基础目录一起删除
+        if (app == null && !versions.isEmpty()) {
+            CodeGenTypeEnum codeGenType = CodeGenTypeEnum.getEnumByValue(versions.get(0).getCodeGenType());
+            if (codeGenType != null) {
+                reclaimed += VersionFileUtils.deleteDirectory(Paths.get(AppVersionPathUtils.buildBaseDir(codeGenType, appId)));
+            }
+        }
+        if (removed > 0) {
+            log.info("已清理应用版本，appId={}, removed={}, reclaimed={} bytes", appId, removed, reclaimed);
+        }
+        return new long[]{removed, reclaimed};
+    }
+
+    /**
+     * 按保留策略选出可删除的版本（versions 按版本号倒序）
+     */
+    private List<AppVersion> selectRemovable(App app, List<AppVersion> versions) {
+        Set<Integer> pinned = new HashSet<>();
+        pinned.add(app.getCurrentVersion());
+        pinned.add(app.getDeployedVersion());
+        LocalDateTime failedDeadline = LocalDateTime.now().minusHours(gcConfig.getFailedRetentionHours());
+        int readyKept = 0;
+        List<AppVersion> removable = new ArrayList<>();
+        for (AppVersion version : versions) {
+            if (pinned.contains(version.getVersion())) {
+                continue;
+            }
+            String status = version.getStatus();
+            if (AppVersionStatusEnum.READY.getValue().equals(status)) {
+                if (readyKept < gcConfig.getKeepReadyVersions()) {
+                    readyKept++;
+                } else {
+                    removable.add(version);
+                }
+            } else if (AppVersionStatusEnum.FAILED.getValue().equals(status)) {
+                LocalDateTime updateTime = version.getUpdateTime() != null ? version.getUpdateTime() : version.getCreateTime();
+                if (updateTime != null && updateTime.isBefore(failedDeadline)) {
+                    removable.add(version);
+                }
+            }
+        }
+        return removable;
+    }
+}
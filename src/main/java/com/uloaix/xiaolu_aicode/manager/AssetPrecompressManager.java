@@ -0,0 +1,247 @@
+package com.uloaix.xiaolu_aicode.manager;
+
+import com.uloaix.xiaolu_aicode.config.PrecompressConfig;
+import com.uloaix.xiaolu_aicode.core.staticserve.MimeTypes;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 部署产物预压缩管理器
+ * <p>
+ * 部署完成后为文本类资源并行生成 {@code .gz} / {@code .br} 副本，访问时按 Accept-Encoding 直接发送副本：
+ * <ul>
+ *     <li>gzip 使用 JDK 最高压缩级别；brotli 调用宿主机的 brotli 命令（质量 11），未安装时跳过</li>
+ *     <li>副本的修改时间与原文件一致，原文件未变化时跳过，重复部署只压缩变化的文件</li>
+ *     <li>压缩收益不足 10% 的副本不保留；原文件已删除的副本一并清理</li>
+ *     <li>副本先写临时文件再原子替换，访问方不会读到写了一半的副本</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class AssetPrecompressManager {
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    public static final String BROTLI_SUFFIX = ".br";
+
+    /**
+     * 压缩后大小不超过原文件的该比例才保留副本
+     */
+    private static final double MAX_RATIO = 0.9;
+
+    private static final int BROTLI_TIMEOUT_SECONDS = 60;
+
+    @Resource
+    private PrecompressConfig precompressConfig;
+
+    private ExecutorService executor;
+
+    private volatile Boolean brotliAvailable;
+
+    @FunctionalInterface
+    private interface Compressor {
+        void compress(Path source, Path target) throws IOException;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(Math.max(1, precompressConfig.getParallelism()),
+                Thread.ofPlatform().name("asset-precompress-", 0).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 为目录下的文本类资源生成预压缩副本
+     *
+     * @param dir 部署目录
+     * @return 新生成的副本数
+     */
+    public int precompress(Path dir) {
+        if (!precompressConfig.isEnabled() || !Files.isDirectory(dir)) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+        List<Path> sources = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(dir)) {
+            stream.filter(Files::isRegularFile).forEach(path -> {
+                String fileName = path.getFileName().toString();
+                if (fileName.endsWith(GZIP_SUFFIX) || fileName.endsWith(BROTLI_SUFFIX)) {
+                    removeOrphan(path);
+                } else if (MimeTypes.isCompressible(fileName) && sizeOf(path) >= precompressConfig.getMinSizeBytes()) {
+                    sources.add(path);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("扫描预压缩目录失败: {}, {}", dir, e.getMessage());
+            return 0;
+        }
+        boolean brotli = isBrotliAvailable();
+        List<Callable<Integer>> tasks = new ArrayList<>(sources.size());
+        for (Path source : sources) {
+            tasks.add(() -> compressFile(source, brotli));
+        }
+        int written = 0;
+        try {
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                try {
+                    written += future.get();
+                } catch (ExecutionException e) {
+                    log.warn("预压缩文件失败: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("预压缩完成: {}，文本资源 {} 个，新生成副本 {} 个，耗时 {}ms",
+                dir, sources.size(), written, System.currentTimeMillis() - startTime);
+        return written;
+    }
+
+    private int compressFile(Path source, boolean brotli) throws IOException {
+        FileTime lastModified = Files.getLastModifiedTime(source);
+        long size = Files.size(source);
+        int written = 0;
+        if (writeVariant(source, GZIP_SUFFIX, lastModified, size, this::gzip)) {
+            written++;
+        }
+        if (brotli && writeVariant(source, BROTLI_SUFFIX, lastModified, size, this::brotli)) {
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * 生成单个压缩副本
+     *
+     * @return 是否新生成了副本
+     */
+    private boolean writeVariant(Path source, String suffix, FileTime lastModified, long size, Compressor compressor) throws IOException {
+        String fileName = source.getFileName().toString();
+        Path target = source.resolveSibling(fileName + suffix);
+        if (Files.isRegularFile(target) && Files.getLastModifiedTime(target).equals(lastModified)) {
+            return false;
+        }
+        Path tempFile = source.resolveSibling("." + fileName + suffix + "." + UUID.randomUUID() + ".tmp");
+        try {
+            compressor.compress(source, tempFile);
+            if (Files.size(tempFile) > size * MAX_RATIO) {
+                Files.deleteIfExists(target);
+                return false;
+            }
+            Files.setLastModifiedTime(tempFile, lastModified);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void gzip(Path source, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), 64 * 1024) {
+                 {
+                     def.setLevel(Deflater.BEST_COMPRESSION);
+                 }
+             }) {
+            in.transferTo(out);
+        }
+    }
+
+    private void brotli(Path source, Path target) throws IOException {
+        Process process = new ProcessBuilder(precompressConfig.getBrotliCommand(), "-q", "11", "-f",
+                "-o", target.toString(), source.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            if (!process.waitFor(BROTLI_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("brotli 压缩超时: " + source);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("brotli 压缩被中断: " + source);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("brotli 压缩失败，退出码: " + process.exitValue());
+        }
+    }
+
+    /**
+     * 检测宿主机是否安装了 brotli 命令（只检测一次）
+     */
+    private boolean isBrotliAvailable() {
+        if (brotliAvailable == null) {
+            boolean available;
+            try {
+                Process process = new ProcessBuilder(precompressConfig.getBrotliCommand(), "--version")
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                available = process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (IOException e) {
+                available = false;
+            }
+            if (!available) {
+                log.info("未检测到 brotli 命令，预压缩只生成 gzip 副本");
+            }
+            brotliAvailable = available;
+        }
+        return brotliAvailable;
+    }
+
+    /**
+     * 原文件已不存在的副本直接删除
+     */
+    private void removeOrphan(Path variant) {
+        String fileName = variant.getFileName().toString();
+        String sourceName = fileName.substring(0, fileName.lastIndexOf('.'));
+        if (!MimeTypes.isCompressible(sourceName) || Files.exists(variant.resolveSibling(sourceName))) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(variant);
+        } catch (IOException e) {
+            log.warn("删除失效的压缩副本失败: {}", variant);
+        }
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
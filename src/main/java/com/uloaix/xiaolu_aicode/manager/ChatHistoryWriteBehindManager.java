@@ -0,0 +1,245 @@
+package com.uloaix.xiaolu_aicode.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.uloaix.xiaolu_aicode.config.ChatHistoryWriteBehindConfig;
+import com.uloaix.xiaolu_aicode.mapper.ChatHistoryMapper;
+import com.uloaix.xiaolu_aicode.model.entity.ChatHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 对话历史异步批量写入管理器（write-behind）
+ * <p>
+ * 流式线程只负责入队，由后台线程按条数或时间窗口批量插入，避免请求线程和 Reactor 线程阻塞在 MySQL 上。
+ * <ul>
+ *     <li>队列有界：队列满时退化为调用方线程同步写入</li>
+ *     <li>读前刷新：查询历史前调用 {@link #flush()}，保证读到自己刚写入的消息</li>
+ *     <li>兜底持久化：批量插入失败或停机时未落库的消息追加到 JSON Lines 文件，下次启动时回放</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ChatHistoryWriteBehindManager {
+
+    @Resource
+    private ChatHistoryWriteBehindConfig writeBehindConfig;
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 刷新锁：后台线程与读前刷新互斥，保证批次按入队顺序落库。
+     * 消息只在持有锁时出队，出队到写入完成之间锁不释放，读前刷新不会漏掉正在写入的批次
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 入队通知：后台线程据此等待新消息，而不是提前把消息取出队列
+     */
+    private final Semaphore available = new Semaphore(0);
+
+    private BlockingQueue<ChatHistory> queue;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    private Timer flushTimer;
+
+    private Counter syncFallbackCounter;
+
+    private Counter fileFallbackCounter;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, writeBehindConfig.getQueueCapacity()));
+        Gauge.builder("chat.history.write.behind.queue.depth", queue, BlockingQueue::size)
+                .description("对话历史待写入队列长度")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("chat.history.write.behind.flush")
+                .description("对话历史批量写入耗时")
+                .register(meterRegistry);
+        syncFallbackCounter = Counter.builder("chat.history.write.behind.sync.fallback")
+                .description("队列已满时同步写入的消息数")
+                .register(meterRegistry);
+        fileFallbackCounter = Counter.builder("chat.history.write.behind.file.fallback")
+                .description("写入兜底文件的消息数")
+                .register(meterRegistry);
+        replayFallbackFile();
+        if (!writeBehindConfig.isEnabled()) {
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("chat-history-writer")
+                .daemon(true)
+                .start(this::runWriter);
+    }
+
+    /**
+     * 是否启用异步写入
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 消息入队；队列已满时在当前线程同步写入
+     *
+     * @param chatHistory 对话历史（需已设置创建时间等字段）
+     */
+    public void enqueue(ChatHistory chatHistory) {
+        if (running && queue.offer(chatHistory)) {
+            available.release();
+            return;
+        }
+        syncFallbackCounter.increment();
+        chatHistoryMapper.insert(chatHistory);
+    }
+
+    /**
+     * 立即把队列中的消息写入数据库（读历史前调用）
+     */
+    public void flush() {
+        // 队列为空且没有批次在写入时无需等待
+        if (queue == null || (queue.isEmpty() && !flushLock.isLocked())) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<ChatHistory> batch = new ArrayList<>();
+            while (queue.drainTo(batch, batchSize()) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // 停机前把剩余消息落库，失败的进入兜底文件
+        flush();
+    }
+
+    private void runWriter() {
+        List<ChatHistory> batch = new ArrayList<>();
+        while (running) {
+            try {
+                if (!available.tryAcquire(writeBehindConfig.getFlushIntervalMillis(), TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                // 通知数可能多于队列中的消息（读前刷新已取走），按队列实际内容处理
+                available.drainPermits();
+                flushLock.lock();
+                try {
+                    queue.drainTo(batch, batchSize());
+                    writeBatch(batch);
+                    if (!queue.isEmpty()) {
+                        available.release();
+                    }
+                } finally {
+                    batch.clear();
+                    flushLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("对话历史写入线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 批量插入；失败时写入兜底文件，保证消息不丢失
+     */
+    private void writeBatch(List<ChatHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chatHistoryMapper.insertBatch(batch);
+        } catch (Exception e) {
+            log.error("对话历史批量写入失败，{} 条消息转入兜底文件", batch.size(), e);
+            appendToFallbackFile(batch);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void appendToFallbackFile(List<ChatHistory> batch) {
+        List<String> lines = new ArrayList<>(batch.size());
+        for (ChatHistory chatHistory : batch) {
+            lines.add(JSONUtil.toJsonStr(chatHistory));
+        }
+        try {
+            FileUtil.appendLines(lines, writeBehindConfig.getFallbackFile(), StandardCharsets.UTF_8);
+            fileFallbackCounter.increment(batch.size());
+        } catch (Exception e) {
+            log.error("写入对话历史兜底文件失败，丢失 {} 条消息", batch.size(), e);
+        }
+    }
+
+    /**
+     * 启动时回放兜底文件
+     */
+    private void replayFallbackFile() {
+        File file = new File(writeBehindConfig.getFallbackFile());
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            List<ChatHistory> histories = new ArrayList<>();
+            for (String line : FileUtil.readLines(file, StandardCharsets.UTF_8)) {
+                if (StrUtil.isNotBlank(line)) {
+                    histories.add(JSONUtil.toBean(line, ChatHistory.class));
+                }
+            }
+            for (int i = 0; i < histories.size(); i += batchSize()) {
+                chatHistoryMapper.insertBatch(histories.subList(i, Math.min(histories.size(), i + batchSize())));
+            }
+            FileUtil.del(file);
+            log.info("已回放对话历史兜底文件，共 {} 条消息", histories.size());
+        } catch (Exception e) {
+            log.error("回放对话历史兜底文件失败，保留文件待下次启动: {}", file.getAbsolutePath(), e);
+        }
+    }
+
+    private int batchSize() {
+        return Math.max(1, writeBehindConfig.getBatchSize());
+    }
+}
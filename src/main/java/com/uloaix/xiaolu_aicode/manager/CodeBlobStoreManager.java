@@ -0,0 +1,469 @@
+package com.uloaix.xiaolu_aicode.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.model.dto.version.VersionManifestEntry;
+import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
+import com.uloaix.xiaolu_aicode.utils.AppVersionPathUtils;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 代码内容寻址存储管理器
+ * <p>
+ * 版本代码按内容 sha256 存为 blob（{@code .cas/blobs/ab/abcdef...}），每个版本另存一份清单（相对路径 → sha256），
+ * 相同内容的文件在所有版本和应用之间只占一份磁盘空间。
+ * <ul>
+ *     <li>版本目录仍是完整的工作目录（npm / vite 需要真实文件），其中的文件是 blob 的硬链接；
+ *     npm 会原地改写的文件（package.json、锁文件）例外，blob 另存一份副本，不与版本目录共享</li>
+ *     <li>blob 一经写入不再修改：所有写入版本目录的操作都通过 {@link VersionFileUtils#writeAtomically} 替换目录项</li>
+ *     <li>读取优先走清单定位 blob，版本目录文件缺失时可按清单恢复</li>
+ *     <li>清单在写入时维护：克隆出的新版本继承上一版本清单，工具与保存器每次写入 / 删除文件时更新对应条目，
+ *     版本对比只需合并两份清单</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class CodeBlobStoreManager {
+
+    /**
+     * 存储根目录
+     */
+    private static final Path STORE_ROOT = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, ".cas");
+
+    private static final Path BLOB_ROOT = STORE_ROOT.resolve("blobs");
+
+    private static final Path MANIFEST_ROOT = STORE_ROOT.resolve("manifests");
+
+    /**
+     * 会被外部工具原地改写的文件（相对版本目录），提交时不替换为 blob 硬链接
+     */
+    public static final Set<String> IN_PLACE_WRITTEN_FILES = Set.of("package.json", "package-lock.json", "npm-shrinkwrap.json");
+
+    /**
+     * 已解析的清单（预览每个资源请求都要查清单），写入 / 删除清单时同步更新
+     */
+    private final Cache<Path, Map<String, VersionManifestEntry>> manifestCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 清单读改写锁（按清单路径分段）
+     */
+    private final Object[] manifestLocks = new Object[64];
+
+    public CodeBlobStoreManager() {
+        for (int i = 0; i < manifestLocks.length; i++) {
+            manifestLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 是否纳入版本清单（构建产物、依赖与临时文件不入库）
+     *
+     * @param relativePath 相对版本目录的路径（/ 分隔）
+     */
+    public static boolean isTrackedPath(String relativePath) {
+        return !(relativePath.startsWith("node_modules/")
+                || relativePath.startsWith("dist/")
+                || relativePath.startsWith(".git/")
+                || relativePath.startsWith(".idea/")
+                || relativePath.startsWith(".vscode/")
+                || relativePath.endsWith(".log")
+                || relativePath.endsWith(".tmp"));
+    }
+
+    /**
+     * 提交版本：把版本目录中的文件存入 blob 并以硬链接替换，写入版本清单
+     *
+     * @return 版本清单，版本目录不存在时返回 null
+     */
+    public Map<String, VersionManifestEntry> commitVersion(CodeGenTypeEnum codeGenType, Long appId, int version) throws IOException {
+        Path versionDir = Paths.get(AppVersionPathUtils.buildVersionDir(codeGenType, appId, version));
+        if (!Files.isDirectory(versionDir)) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        Path manifestPath = buildManifestPath(codeGenType, appId, version);
+        synchronized (lockFor(manifestPath)) {
+            // 写入时记录的条目（size、mtime 未变）直接复用 sha256，只对清单外或已变化的文件重新计算
+            Map<String, VersionManifestEntry> recorded = readManifest(manifestPath);
+            Map<String, VersionManifestEntry> manifest = new TreeMap<>();
+            int[] hashed = {0};
+            // 遍历时直接跳过 node_modules、dist 等不入库的目录
+            Files.walkFileTree(versionDir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    String relativePath = toRelativePath(versionDir, dir);
+                    return relativePath.isEmpty() || isTrackedPath(relativePath + "/")
+                            ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
+                    String relativePath = toRelativePath(versionDir, path);
+                    if (!attrs.isRegularFile() || !isTrackedPath(relativePath)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    File file = path.toFile();
+                    VersionManifestEntry entry = recorded == null ? null : recorded.get(relativePath);
+                    String sha256 = isUpToDate(entry, file) ? entry.getSha256() : null;
+                    if (sha256 == null) {
+                        sha256 = DigestUtil.sha256Hex(file);
+                        hashed[0]++;
+                    }
+                    storeBlob(path, sha256, !IN_PLACE_WRITTEN_FILES.contains(relativePath));
+                    // 替换为 blob 硬链接后 mtime 随 blob 变化，重新记录
+                    manifest.put(relativePath, buildEntry(sha256, path));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            writeManifest(manifestPath, manifest);
+            log.info("版本已提交到内容存储，appId={}, version={}, files={}, hashed={}, cost={}ms",
+                    appId, version, manifest.size(), hashed[0], System.currentTimeMillis() - start);
+            return manifest;
+        }
+    }
+
+    /**
+     * 读取版本清单
+     *
+     * @return 版本清单（按路径排序），未提交的版本返回 null
+     */
+    public Map<String, VersionManifestEntry> readManifest(CodeGenTypeEnum codeGenType, Long appId, int version) {
+        return readManifest(buildManifestPath(codeGenType, appId, version));
+    }
+
+    /**
+     * 初始化新版本清单（创建版本时调用）
+     * <p>
+     * 新版本目录由上一版本完整克隆且上一版本有清单时直接继承；新版本目录为空时写入空清单；
+     * 否则不建清单，写入时不再维护，等版本提交时完整计算。
+     *
+     * @param clonedFromVersion 新版本目录克隆自的版本，未克隆时传 0
+     */
+    public void initManifest(CodeGenTypeEnum codeGenType, Long appId, int clonedFromVersion, int toVersion) throws IOException {
+        Path target = buildManifestPath(codeGenType, appId, toVersion);
+        Path source = buildManifestPath(codeGenType, appId, clonedFromVersion);
+        synchronized (lockFor(target)) {
+            if (clonedFromVersion > 0 && Files.isRegularFile(source)) {
+                VersionFileUtils.writeAtomically(target, Files.readAllBytes(source));
+                manifestCache.invalidate(target);
+                return;
+            }
+            File versionDir = new File(AppVersionPathUtils.buildVersionDir(codeGenType, appId, toVersion));
+            String[] children = versionDir.list();
+            if (children == null || children.length == 0) {
+                writeManifest(target, new TreeMap<>());
+            }
+        }
+    }
+
+    /**
+     * 记录文件写入（写入后调用，内容 sha256 由内存中的内容计算，不再回读文件）
+     *
+     * @param relativePath 相对版本目录的路径
+     * @param content      写入的内容
+     * @param file         写入后的文件
+     */
+    public void recordFileWrite(CodeGenTypeEnum codeGenType, Long appId, int version, String relativePath,
+                                byte[] content, Path file) {
+        String normalized = normalizeRelativePath(relativePath);
+        if (version <= 0 || !isTrackedPath(normalized)) {
+            return;
+        }
+        updateManifest(codeGenType, appId, version, manifest -> {
+            try {
+                manifest.put(normalized, buildEntry(DigestUtil.sha256Hex(content), file));
+            } catch (IOException e) {
+                // 取不到文件属性时移除条目，提交版本时重新计算
+                manifest.remove(normalized);
+            }
+        });
+    }
+
+    /**
+     * 记录文件删除
+     *
+     * @param relativePath 相对版本目录的路径
+     */
+    public void recordFileDelete(CodeGenTypeEnum codeGenType, Long appId, int version, String relativePath) {
+        if (version <= 0) {
+            return;
+        }
+        String normalized = normalizeRelativePath(relativePath);
+        updateManifest(codeGenType, appId, version, manifest -> manifest.remove(normalized));
+    }
+
+    /**
+     * 清单条目是否仍与磁盘文件一致（size、mtime 均未变化）
+     */
+    public boolean isUpToDate(VersionManifestEntry entry, File file) {
+        return entry != null && entry.getSha256() != null
+                && entry.getSize() != null && entry.getSize() == file.length()
+                && entry.getMtime() != null && entry.getMtime() == file.lastModified();
+    }
+
+    /**
+     * 读取清单（缓存的只读视图）
+     */
+    private Map<String, VersionManifestEntry> readManifest(Path manifestPath) {
+        return manifestCache.get(manifestPath, this::loadManifest);
+    }
+
+    private Map<String, VersionManifestEntry> loadManifest(Path manifestPath) {
+        if (!Files.isRegularFile(manifestPath)) {
+            return null;
+        }
+        try {
+            JSONObject json = JSONUtil.parseObj(Files.readString(manifestPath, StandardCharsets.UTF_8));
+            Map<String, VersionManifestEntry> manifest = new TreeMap<>();
+            for (String relativePath : json.keySet()) {
+                manifest.put(relativePath, json.getJSONObject(relativePath).toBean(VersionManifestEntry.class));
+            }
+            return Collections.unmodifiableMap(manifest);
+        } catch (Exception e) {
+            log.warn("读取版本清单失败: {}", manifestPath, e);
+            return null;
+        }
+    }
+
+    /**
+     * 解析版本内文件：已提交的文件读取 blob，否则读取版本目录
+     *
+     * @param relativePath 相对版本目录的路径
+     * @return 文件（不保证存在）
+     */
+    public File resolveFile(CodeGenTypeEnum codeGenType, Long appId, int version, String relativePath) {
+        String normalized = normalizeRelativePath(relativePath);
+        Map<String, VersionManifestEntry> manifest = readManifest(codeGenType, appId, version);
+        if (manifest != null) {
+            VersionManifestEntry entry = manifest.get(normalized);
+            if (entry != null) {
+                Path blob = buildBlobPath(entry.getSha256());
+                if (Files.isRegularFile(blob)) {
+                    return blob.toFile();
+                }
+            }
+        }
+        return new File(AppVersionPathUtils.buildVersionDir(codeGenType, appId, version), normalized);
+    }
+
+    /**
+     * 按清单恢复版本目录中缺失的文件（回滚前调用）
+     *
+     * @return 恢复的文件数，未提交的版本返回 0
+     */
+    public int restoreVersion(CodeGenTypeEnum codeGenType, Long appId, int version) throws IOException {
+        Map<String, VersionManifestEntry> manifest = readManifest(codeGenType, appId, version);
+        if (manifest == null) {
+            return 0;
+        }
+        Path versionDir = Paths.get(AppVersionPathUtils.buildVersionDir(codeGenType, appId, version)).toAbsolutePath().normalize();
+        int restored = 0;
+        for (Map.Entry<String, VersionManifestEntry> entry : manifest.entrySet()) {
+            Path target = versionDir.resolve(entry.getKey()).normalize();
+            if (!target.startsWith(versionDir) || Files.exists(target)) {
+                continue;
+            }
+            Path blob = buildBlobPath(entry.getValue().getSha256());
+            if (!Files.isRegularFile(blob)) {
+                log.warn("blob 缺失，无法恢复文件，appId={}, version={}, path={}", appId, version, entry.getKey());
+                continue;
+            }
+            Files.createDirectories(target.getParent());
+            linkOrCopy(blob, target);
+            restored++;
+        }
+        if (restored > 0) {
+            log.info("已按清单恢复版本文件，appId={}, version={}, files={}", appId, version, restored);
+        }
+        return restored;
+    }
+
+    /**
+     * 删除版本清单（版本被清理时调用）
+     */
+    public void deleteManifest(CodeGenTypeEnum codeGenType, Long appId, int version) throws IOException {
+        Path manifestPath = buildManifestPath(codeGenType, appId, version);
+        synchronized (lockFor(manifestPath)) {
+            Files.deleteIfExists(manifestPath);
+            manifestCache.invalidate(manifestPath);
+        }
+    }
+
+    /**
+     * 清理不再被任何版本引用的 blob：没有清单引用，且除 blob 自身外没有其它硬链接
+     *
+     * @param minAgeMillis 只清理修改时间早于该时长的 blob，避免与正在提交的版本竞争
+     * @return 释放的字节数
+     */
+    public long sweepBlobs(long minAgeMillis) throws IOException {
+        if (!Files.isDirectory(BLOB_ROOT)) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>();
+        if (Files.isDirectory(MANIFEST_ROOT)) {
+            for (File manifestFile : FileUtil.loopFiles(MANIFEST_ROOT.toFile(), file -> file.getName().endsWith(".json"))) {
+                Map<String, VersionManifestEntry> manifest = loadManifest(manifestFile.toPath());
+                if (manifest != null) {
+                    manifest.values().forEach(entry -> referenced.add(entry.getSha256()));
+                }
+            }
+        }
+        long deadline = System.currentTimeMillis() - minAgeMillis;
+        long reclaimed = 0;
+        for (File blob : FileUtil.loopFiles(BLOB_ROOT.toFile())) {
+            if (referenced.contains(blob.getName()) || blob.lastModified() > deadline
+                    || VersionFileUtils.linkCount(blob.toPath()) > 1) {
+                continue;
+            }
+            long size = blob.length();
+            if (blob.delete()) {
+                reclaimed += size;
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * blob 路径：按 sha256 前两位分目录
+     */
+    public Path buildBlobPath(String sha256) {
+        return BLOB_ROOT.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private Path buildManifestPath(CodeGenTypeEnum codeGenType, Long appId, int version) {
+        return MANIFEST_ROOT.resolve(codeGenType.getValue() + "_" + appId).resolve("v" + version + ".json");
+    }
+
+    private void updateManifest(CodeGenTypeEnum codeGenType, Long appId, int version,
+                                Consumer<Map<String, VersionManifestEntry>> updater) {
+        Path manifestPath = buildManifestPath(codeGenType, appId, version);
+        synchronized (lockFor(manifestPath)) {
+            try {
+                Map<String, VersionManifestEntry> cached = readManifest(manifestPath);
+                // 没有清单说明版本目录来源未知，交给提交版本时完整计算
+                if (cached == null) {
+                    return;
+                }
+                Map<String, VersionManifestEntry> manifest = new TreeMap<>(cached);
+                updater.accept(manifest);
+                writeManifest(manifestPath, manifest);
+            } catch (Exception e) {
+                log.warn("更新版本清单失败，appId={}, version={}, err={}", appId, version, e.getMessage());
+            }
+        }
+    }
+
+    private void writeManifest(Path manifestPath, Map<String, VersionManifestEntry> manifest) throws IOException {
+        VersionFileUtils.writeAtomically(manifestPath, JSONUtil.toJsonStr(manifest).getBytes(StandardCharsets.UTF_8));
+        manifestCache.put(manifestPath, Collections.unmodifiableMap(new TreeMap<>(manifest)));
+    }
+
+    private VersionManifestEntry buildEntry(String sha256, Path file) throws IOException {
+        return VersionManifestEntry.builder()
+                .sha256(sha256)
+                .size(Files.size(file))
+                .mtime(Files.getLastModifiedTime(file).toMillis())
+                .build();
+    }
+
+    private Object lockFor(Path manifestPath) {
+        return manifestLocks[Math.floorMod(manifestPath.hashCode(), manifestLocks.length)];
+    }
+
+    private static String toRelativePath(Path versionDir, Path path) {
+        return versionDir.relativize(path).toString().replace('\\', '/');
+    }
+
+    private String normalizeRelativePath(String relativePath) {
+        String normalized = relativePath.replace('\\', '/');
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        return normalized.startsWith("/") ? normalized.substring(1) : normalized;
+    }
+
+    /**
+     * 存入 blob：内容已存在时把文件替换为 blob 的硬链接，否则以该文件作为 blob
+     *
+     * @param share 是否与版本目录共享文件；为 false 时 blob 为独立副本，版本目录中的文件不再链接到 blob
+     */
+    private void storeBlob(Path file, String sha256, boolean share) throws IOException {
+        Path blob = buildBlobPath(sha256);
+        if (!share) {
+            if (!Files.exists(blob)) {
+                VersionFileUtils.writeAtomically(blob, Files.readAllBytes(file));
+            }
+            // 旧版本提交时可能已链接到 blob，断开后再交给 npm 改写
+            if (Files.isSameFile(file, blob)) {
+                VersionFileUtils.detachHardLink(file);
+            }
+            return;
+        }
+        if (!Files.exists(blob)) {
+            Files.createDirectories(blob.getParent());
+            try {
+                linkOrCopy(file, blob);
+                return;
+            } catch (FileAlreadyExistsException e) {
+                // 并发提交时已由其它版本写入，走下面的去重逻辑
+            }
+        }
+        if (Files.isSameFile(file, blob)) {
+            return;
+        }
+        // 先在同目录建立临时链接，再原子替换，避免替换过程中文件短暂缺失
+        Path tempLink = file.resolveSibling("." + file.getFileName() + ".cas.tmp");
+        Files.deleteIfExists(tempLink);
+        try {
+            linkOrCopy(blob, tempLink);
+            try {
+                Files.move(tempLink, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempLink, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempLink);
+        }
+    }
+
+    private void linkOrCopy(Path existing, Path link) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            // 跨文件系统时退回复制（不再共享磁盘空间）
+            Files.copy(existing, link);
+        }
+    }
+}
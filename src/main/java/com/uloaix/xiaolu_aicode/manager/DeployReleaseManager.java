@@ -0,0 +1,208 @@
+package com.uloaix.xiaolu_aicode.manager;
+
+import cn.hutool.core.io.FileUtil;
+import com.uloaix.xiaolu_aicode.config.DeployReleaseConfig;
+import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * 部署发布管理器
+ * <p>
+ * {@code code_deploy/{deployKey}} 是指向 {@code code_deploy/.releases/{deployKey}/{releaseId}} 的符号链接：
+ * <ul>
+ *     <li>新部署先在 staging 目录中准备完整内容：与上一次部署相同的文件（连同预压缩副本）直接硬链接，只复制变化的文件</li>
+ *     <li>预压缩在 staging 中完成，随后重命名为 release 目录，再用“新建临时链接 + rename”原子替换部署链接</li>
+ *     <li>访问方要么看到旧 release，要么看到新 release，不会读到复制了一半的文件；旧 release 中已删除的文件也不会残留</li>
+ *     <li>每个应用保留最近 keepReleases 个 release，更早的删除</li>
+ *     <li>首次发布时把旧的真实部署目录迁移为最早的 release</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class DeployReleaseManager {
+
+    private static final Path DEPLOY_ROOT = Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR);
+
+    /**
+     * release 根目录（以 . 开头，不会被当作 deployKey 访问）
+     */
+    private static final String RELEASES_DIR = ".releases";
+
+    private static final DateTimeFormatter RELEASE_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    /**
+     * 迁移的旧部署目录名（排序在所有 release 之前，最先被清理）
+     */
+    private static final String LEGACY_RELEASE_ID = "00000000000000000-legacy";
+
+    private static final Set<String> SIBLING_SUFFIXES = Set.of(AssetPrecompressManager.GZIP_SUFFIX, AssetPrecompressManager.BROTLI_SUFFIX);
+
+    @Resource
+    private DeployReleaseConfig deployReleaseConfig;
+
+    @Resource
+    private AssetPrecompressManager assetPrecompressManager;
+
+    /**
+     * 同一应用的部署串行执行
+     */
+    private final ConcurrentMap<String, Object> deployLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 发布部署内容
+     *
+     * @param deployKey 部署标识
+     * @param sourceDir 待发布的目录（版本目录或 Vue 项目的 dist）
+     */
+    public void publish(String deployKey, Path sourceDir) throws IOException {
+        Path deployDir = DEPLOY_ROOT.resolve(deployKey);
+        if (!deployReleaseConfig.isEnabled()) {
+            // 直接覆盖复制
+            FileUtil.copyContent(sourceDir.toFile(), deployDir.toFile(), true);
+            assetPrecompressManager.precompress(deployDir);
+            return;
+        }
+        synchronized (deployLocks.computeIfAbsent(deployKey, key -> new Object())) {
+            publishRelease(deployKey, deployDir, sourceDir);
+        }
+    }
+
+    private void publishRelease(String deployKey, Path deployDir, Path sourceDir) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path releasesDir = DEPLOY_ROOT.resolve(RELEASES_DIR).resolve(deployKey);
+        Files.createDirectories(releasesDir);
+        removeStaleStaging(releasesDir);
+        // 旧版本部署是真实目录：构建 staging 期间仍由它对外提供访问，并作为复用文件的基准
+        boolean legacy = Files.isDirectory(deployDir, LinkOption.NOFOLLOW_LINKS);
+        Path previous = null;
+        if (legacy) {
+            previous = deployDir;
+        } else if (Files.isSymbolicLink(deployDir) && Files.exists(deployDir)) {
+            previous = deployDir.toRealPath();
+        }
+
+        String releaseId = nextReleaseId(releasesDir);
+        Path staging = releasesDir.resolve("." + releaseId + ".staging");
+        Path release = releasesDir.resolve(releaseId);
+        try {
+            int reused = VersionFileUtils.copyReusingBase(sourceDir, staging, previous, SIBLING_SUFFIXES);
+            // 只有新复制的文件需要压缩（复用的文件已带有副本）
+            assetPrecompressManager.precompress(staging);
+            Files.move(staging, release, StandardCopyOption.ATOMIC_MOVE);
+            if (legacy) {
+                switchFromLegacyDir(deployKey, deployDir, releasesDir, release);
+            } else {
+                switchLink(deployKey, deployDir, release);
+            }
+            log.info("部署发布完成: {} -> {}，复用上一次部署的文件 {} 个，耗时 {}ms",
+                    deployKey, releaseId, reused, System.currentTimeMillis() - startTime);
+        } finally {
+            if (Files.exists(staging, LinkOption.NOFOLLOW_LINKS)) {
+                VersionFileUtils.deleteDirectory(staging);
+            }
+        }
+        pruneReleases(releasesDir, release);
+    }
+
+    /**
+     * 原子切换部署链接：在同一目录下创建临时链接，再 rename 覆盖旧链接
+     */
+    private void switchLink(String deployKey, Path deployDir, Path release) throws IOException {
+        Path linkTarget = deployDir.getParent().relativize(release);
+        Path tempLink = deployDir.resolveSibling("." + deployKey + "." + UUID.randomUUID() + ".link");
+        Files.createSymbolicLink(tempLink, linkTarget);
+        try {
+            Files.move(tempLink, deployDir, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempLink);
+        }
+    }
+
+    /**
+     * 旧版本部署是真实目录：新 release 准备好之后才移入 release 目录并立即切换链接
+     * （两次 rename 之间该应用短暂不可访问），切换失败时把旧目录移回原处
+     */
+    private void switchFromLegacyDir(String deployKey, Path deployDir, Path releasesDir, Path release) throws IOException {
+        Path legacy = releasesDir.resolve(LEGACY_RELEASE_ID);
+        if (Files.exists(legacy, LinkOption.NOFOLLOW_LINKS)) {
+            VersionFileUtils.deleteDirectory(legacy);
+        }
+        Files.move(deployDir, legacy, StandardCopyOption.ATOMIC_MOVE);
+        try {
+            switchLink(deployKey, deployDir, release);
+        } catch (IOException | RuntimeException e) {
+            Files.move(legacy, deployDir, StandardCopyOption.ATOMIC_MOVE);
+            throw e;
+        }
+        log.info("旧部署目录已迁移为 release: {}", legacy);
+    }
+
+    private String nextReleaseId(Path releasesDir) {
+        String base = LocalDateTime.now().format(RELEASE_ID_FORMATTER);
+        String releaseId = base;
+        for (int i = 1; Files.exists(releasesDir.resolve(releaseId), LinkOption.NOFOLLOW_LINKS); i++) {
+            releaseId = base + "-" + i;
+        }
+        return releaseId;
+    }
+
+    /**
+     * 清理上次异常中断留下的 staging 目录
+     */
+    private void removeStaleStaging(Path releasesDir) throws IOException {
+        try (Stream<Path> stream = Files.list(releasesDir)) {
+            for (Path path : stream.filter(path -> path.getFileName().toString().startsWith(".")).toList()) {
+                VersionFileUtils.deleteDirectory(path);
+            }
+        }
+    }
+
+    /**
+     * 保留最近的 release，删除更早的（当前 release 始终保留）
+     */
+    private void pruneReleases(Path releasesDir, Path current) {
+        List<Path> releases;
+        try (Stream<Path> stream = Files.list(releasesDir)) {
+            releases = stream
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .filter(path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                    .sorted(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("读取 release 列表失败: {}", releasesDir);
+            return;
+        }
+        int keep = Math.max(1, deployReleaseConfig.getKeepReleases());
+        for (int i = keep; i < releases.size(); i++) {
+            Path release = releases.get(i);
+            if (release.equals(current)) {
+                continue;
+            }
+            try {
+                long reclaimed = VersionFileUtils.deleteDirectory(release);
+                log.info("删除旧 release: {}，释放 {} 字节", release, reclaimed);
+            } catch (IOException e) {
+                log.warn("删除旧 release 失败: {}, {}", release, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.uloaix.xiaolu_aicode.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.uloaix.xiaolu_aicode.config.NodeModulesCacheConfig;
+import com.uloaix.xiaolu_aicode.constant.AppConstant;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * node_modules 共享缓存管理器
+ * <p>
+ * 生成的 Vue 项目依赖声明几乎相同，按依赖指纹缓存一份安装好的 node_modules（{@code .node_modules_cache/<指纹>/node_modules}），
+ * 新项目通过符号链接直接复用，冷构建只剩 {@code npm run build}：
+ * <ul>
+ *     <li>指纹只取 package.json 中影响安装结果的字段，加上 lock 文件与平台，项目名等差异不影响命中</li>
+ *     <li>缓存未命中时照常安装，成功后把 node_modules 移入缓存再链接回项目</li>
+ *     <li>不支持符号链接（如 Windows 无权限）时退回硬链接克隆</li>
+ *     <li>总大小超过上限时按最近使用时间淘汰，最近使用过的条目不淘汰；每次复用（含已链接直接跳过安装）
+ *     以及常驻 watch 进程运行期间都会刷新使用时间</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class NodeModulesCacheManager {
+
+    /**
+     * 缓存根目录（与项目目录在同一文件系统，移动为原子重命名）
+     */
+    private static final Path CACHE_ROOT = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, ".node_modules_cache");
+
+    private static final String NODE_MODULES = "node_modules";
+
+    /**
+     * 条目大小记录文件（写入时统计一次，淘汰时不再遍历）
+     */
+    private static final String SIZE_FILE = "size";
+
+    /**
+     * 影响安装结果的 package.json 字段
+     */
+    private static final List<String> DEPENDENCY_FIELDS = List.of(
+            "dependencies", "devDependencies", "optionalDependencies", "peerDependencies", "overrides", "resolutions");
+
+    private static final List<String> LOCK_FILES = List.of("package-lock.json", "pnpm-lock.yaml", "yarn.lock");
+
+    @Resource
+    private NodeModulesCacheConfig cacheConfig;
+
+    /**
+     * 计算项目依赖指纹
+     *
+     * @param projectDir 项目目录
+     * @return 指纹，未开启缓存或 package.json 无法解析时返回 null
+     */
+    public String fingerprint(File projectDir) {
+        if (!cacheConfig.isEnabled()) {
+            return null;
+        }
+        try {
+            JSONObject packageJson = JSONUtil.parseObj(FileUtil.readUtf8String(new File(projectDir, "package.json")));
+            StringBuilder source = new StringBuilder()
+                    .append(System.getProperty("os.name")).append('|')
+                    .append(System.getProperty("os.arch"));
+            for (String field : DEPENDENCY_FIELDS) {
+                Object value = packageJson.get(field);
+                if (value == null) {
+                    continue;
+                }
+                source.append('|').append(field).append(':');
+                // 按键排序，声明顺序不同不影响命中
+                if (value instanceof JSONObject object) {
+                    new TreeMap<>(object).forEach((name, spec) -> source.append(name).append('=').append(spec).append(';'));
+                } else {
+                    source.append(value);
+                }
+            }
+            for (String lockFile : LOCK_FILES) {
+                File file = new File(projectDir, lockFile);
+                if (file.isFile()) {
+                    source.append('|').append(lockFile).append(':').append(DigestUtil.sha256Hex(file));
+                }
+            }
+            return DigestUtil.sha256Hex(source.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.warn("计算依赖指纹失败，跳过 node_modules 缓存: {}, err={}", projectDir, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 命中缓存时把 node_modules 链接到项目目录
+     *
+     * @return 是否命中
+     */
+    public boolean linkCached(String fingerprint, File projectDir) {
+        Path entry = CACHE_ROOT.resolve(fingerprint);
+        if (!Files.isDirectory(entry.resolve(NODE_MODULES))) {
+            return false;
+        }
+        try {
+            // 先刷新使用时间，避免链接过程中被淘汰
+            touchEntry(entry);
+            linkInto(entry, projectDir.toPath());
+            log.info("node_modules 缓存命中，fingerprint={}, project={}", fingerprint, projectDir);
+            return true;
+        } catch (Exception e) {
+            log.warn("链接 node_modules 缓存失败，回退 npm install: {}, err={}", projectDir, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 项目的 node_modules 是否已链接到该指纹的缓存条目（是则刷新条目使用时间）
+     */
+    public boolean isLinkedTo(String fingerprint, File projectDir) {
+        Path link = projectDir.toPath().resolve(NODE_MODULES);
+        try {
+            // 比较真实路径：指纹别名与原条目指向同一目录
+            Path target = CACHE_ROOT.resolve(fingerprint).resolve(NODE_MODULES).toRealPath();
+            if (Files.isSymbolicLink(link) && link.toRealPath().equals(target)) {
+                touch(target);
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 刷新 node_modules 所属缓存条目的使用时间（仍在使用的条目不被淘汰）
+     *
+     * @param nodeModules node_modules 路径，不在缓存中时不做处理
+     */
+    public void touch(Path nodeModules) {
+        if (nodeModules == null) {
+            return;
+        }
+        try {
+            Path entry = nodeModules.toRealPath().getParent();
+            if (entry != null && entry.getParent() != null && entry.getParent().equals(CACHE_ROOT.toRealPath())) {
+                touchEntry(entry);
+            }
+        } catch (IOException e) {
+            log.debug("刷新 node_modules 缓存使用时间失败: {}, err={}", nodeModules, e.getMessage());
+        }
+    }
+
+    /**
+     * 安装成功后把项目的 node_modules 存入缓存，并链接回项目目录
+     * <p>
+     * 没有 lock 文件的项目安装后会生成 package-lock.json，后续版本的指纹随之变化，
+     * 因此额外登记安装后指纹的别名，指向同一条目。
+     *
+     * @param fingerprint 安装前计算的指纹
+     */
+    public void store(String fingerprint, File projectDir) {
+        Path project = projectDir.toPath();
+        Path nodeModules = project.resolve(NODE_MODULES);
+        if (Files.isSymbolicLink(nodeModules) || !Files.isDirectory(nodeModules)) {
+            return;
+        }
+        Path entry = CACHE_ROOT.resolve(fingerprint);
+        Path staging = CACHE_ROOT.resolve(".tmp-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(staging);
+            long size = directorySize(nodeModules);
+            Files.move(nodeModules, staging.resolve(NODE_MODULES), StandardCopyOption.ATOMIC_MOVE);
+            Files.writeString(staging.resolve(SIZE_FILE), String.valueOf(size));
+            try {
+                Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+                log.info("node_modules 已写入缓存，fingerprint={}, size={}MB", fingerprint, size / 1024 / 1024);
+            } catch (IOException e) {
+                // 并发安装了同一指纹，直接复用已有条目
+                log.info("node_modules 缓存条目已存在，复用: {}", fingerprint);
+            }
+            if (Files.isDirectory(entry.resolve(NODE_MODULES))) {
+                linkInto(entry, project);
+                registerAlias(fingerprint(projectDir), entry);
+            }
+        } catch (Exception e) {
+            log.warn("写入 node_modules 缓存失败: {}, err={}", projectDir, e.getMessage());
+        } finally {
+            restoreIfMissing(staging, nodeModules);
+            deleteQuietly(staging);
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * 按总大小淘汰最久未使用的条目
+     */
+    public void evictIfNeeded() {
+        if (!Files.isDirectory(CACHE_ROOT)) {
+            return;
+        }
+        long maxBytes = cacheConfig.getMaxSizeMb() * 1024 * 1024;
+        long idleDeadline = System.currentTimeMillis() - cacheConfig.getMinIdleMinutes() * 60_000L;
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> stream = Files.list(CACHE_ROOT)) {
+            for (Path entry : stream.toList()) {
+                if (entry.getFileName().toString().startsWith(".")) {
+                    // 进程中断残留的临时目录
+                    if (lastUsed(entry) < idleDeadline) {
+                        deleteQuietly(entry);
+                    }
+                    continue;
+                }
+                if (Files.isSymbolicLink(entry)) {
+                    // 别名不占空间，原条目被淘汰后一并清理
+                    if (!Files.exists(entry)) {
+                        deleteQuietly(entry);
+                    }
+                    continue;
+                }
+                entries.add(entry);
+                total += readSize(entry);
+            }
+        } catch (IOException e) {
+            log.warn("读取 node_modules 缓存目录失败: {}", e.getMessage());
+            return;
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(NodeModulesCacheManager::lastUsed));
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (lastUsed(entry) > idleDeadline) {
+                continue;
+            }
+            long size = readSize(entry);
+            // 先重命名再删除，删除过程中不会被当作可用条目链接
+            Path trash = CACHE_ROOT.resolve(".trash-" + UUID.randomUUID());
+            try {
+                Files.move(entry, trash, StandardCopyOption.ATOMIC_MOVE);
+                VersionFileUtils.deleteDirectory(trash);
+                total -= size;
+                log.info("淘汰 node_modules 缓存: {}, size={}MB", entry.getFileName(), size / 1024 / 1024);
+            } catch (IOException e) {
+                log.warn("淘汰 node_modules 缓存失败: {}, err={}", entry.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 登记指纹别名（指向已有条目的符号链接）
+     */
+    private void registerAlias(String alias, Path entry) {
+        if (alias == null || alias.equals(entry.getFileName().toString())) {
+            return;
+        }
+        Path aliasPath = CACHE_ROOT.resolve(alias);
+        if (Files.exists(aliasPath, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try {
+            Files.createSymbolicLink(aliasPath, entry.getFileName());
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("登记 node_modules 缓存别名失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 项目目录中的 node_modules 指向缓存：优先符号链接，失败时硬链接克隆
+     */
+    private void linkInto(Path entry, Path project) throws IOException {
+        Path target = entry.resolve(NODE_MODULES).toAbsolutePath();
+        Path link = project.resolve(NODE_MODULES);
+        if (Files.isSymbolicLink(link)) {
+            Files.delete(link);
+        }
+        try {
+            Files.createSymbolicLink(link, target);
+        } catch (UnsupportedOperationException | IOException e) {
+            log.info("无法创建符号链接，改用硬链接克隆 node_modules: {}", e.getMessage());
+            VersionFileUtils.cloneWithHardLinks(target, link, Set.of(".vite", ".cache"));
+        }
+    }
+
+    private static void touchEntry(Path entry) throws IOException {
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * 写入缓存中途失败时把 node_modules 移回项目目录
+     */
+    private void restoreIfMissing(Path staging, Path nodeModules) {
+        Path staged = staging.resolve(NODE_MODULES);
+        if (Files.exists(nodeModules, LinkOption.NOFOLLOW_LINKS) || !Files.isDirectory(staged)) {
+            return;
+        }
+        try {
+            Files.move(staged, nodeModules, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("恢复 node_modules 失败: {}, err={}", nodeModules, e.getMessage());
+        }
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        long[] size = {0};
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    size[0] += attrs.size();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
+    private static long readSize(Path entry) {
+        try {
+            return Long.parseLong(Files.readString(entry.resolve(SIZE_FILE)).trim());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static long lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try {
+            VersionFileUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            log.warn("删除临时目录失败: {}, err={}", dir, e.getMessage());
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -30,4 +32,14 @@ public class BuildProgressEvent {
      * 用户可读的提示信息
      */
     private String message;
+
+    /**
+     * 排队位置（从 1 开始，仅 waiting 状态）
+     */
+    private Integer queuePosition;
+
+    /**
+     * 构建输出日志尾部（仅 failed 状态，用于失败诊断）
+     */
+    private List<String> logTail;
 }
@@ -0,0 +1,31 @@
+package com.uloaix.xiaolu_aicode.model.dto.version;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 版本清单条目（单个文件）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionManifestEntry {
+
+    /**
+     * 文件内容 sha256（即 blob 键）
+     */
+    private String sha256;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long size;
+
+    /**
+     * 文件修改时间（毫秒），与 size 一起用于判断清单条目是否仍与磁盘文件一致
+     */
+    private Long mtime;
+}
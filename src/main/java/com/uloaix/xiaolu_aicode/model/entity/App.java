@@ -70,6 +70,12 @@ public class App implements Serializable {
     @Column("deployedTime")
     private LocalDateTime deployedTime;
 
+    /**
+     * 已部署的版本号
+     */
+    @Column("deployedVersion")
+    private Integer deployedVersion;
+
     /**
      * 当前版本号
      */
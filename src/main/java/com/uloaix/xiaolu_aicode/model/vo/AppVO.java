@@ -46,6 +46,11 @@ public class AppVO implements Serializable {
      */
     private LocalDateTime deployedTime;
 
+    /**
+     * 已部署的版本号
+     */
+    private Integer deployedVersion;
+
     /**
      * 当前版本号
      */
@@ -18,6 +18,8 @@ public class AppVersionFileDiffVO implements Serializable {
     private Integer afterLines;
     private String beforeExcerpt;
     private String afterExcerpt;
+    private String unifiedDiff; // 行级差异（unified diff 格式），文件过大时为空
+    private Boolean diffTooLarge; // 为 true 时通过 /app/version/diff/file 流式获取差异
 
     private static final long serialVersionUID = 1L;
 }
@@ -2,6 +2,7 @@ package com.uloaix.xiaolu_aicode.service;
 
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
+import com.uloaix.xiaolu_aicode.core.handler.StreamOutput;
 import com.uloaix.xiaolu_aicode.model.dto.app.AppAddRequest;
 import com.uloaix.xiaolu_aicode.model.dto.app.AppQueryRequest;
 import com.uloaix.xiaolu_aicode.model.entity.App;
@@ -57,7 +58,7 @@ public interface AppService extends IService<App> {
      * @param loginUser 登录用户
      * @return
      */
-    Flux<String> chatToGenCode(Long appId, String message, User loginUser);
+    Flux<StreamOutput> chatToGenCode(Long appId, String message, User loginUser);
 
     /**
      * 部署应用
@@ -5,7 +5,9 @@ import com.uloaix.xiaolu_aicode.model.entity.AppVersion;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import com.uloaix.xiaolu_aicode.model.vo.AppVersionDiffVO;
 import com.uloaix.xiaolu_aicode.model.vo.AppVersionFileDiffVO;
+import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -67,4 +69,14 @@ public interface AppVersionService extends IService<AppVersion> {
      * 计算文件差异
      */
     List<AppVersionFileDiffVO> diffFiles(String baseDir, String targetDir);
+
+    /**
+     * 流式输出单个文件的行级差异（unified diff，用于超过内联大小上限的大文件）
+     */
+    void writeFileDiff(Long appId, int fromVersion, int toVersion, String path, HttpServletResponse response) throws IOException;
+
+    /**
+     * 清除已删除版本的对比结果与文件摘要缓存（版本清理后调用）
+     */
+    void evictVersionCaches(CodeGenTypeEnum codeGenType, Long appId, int version);
 }
@@ -6,7 +6,7 @@ import com.mybatisflex.core.service.IService;
 import com.uloaix.xiaolu_aicode.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.uloaix.xiaolu_aicode.model.entity.ChatHistory;
 import com.uloaix.xiaolu_aicode.model.entity.User;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 
 import java.time.LocalDateTime;
 
@@ -56,11 +56,21 @@ public interface ChatHistoryService extends IService<ChatHistory> {
                                                User loginUser) ;
 
     /**
-     * 加载聊天记录到内存
+     * 加载聊天记录到记忆存储（一次性批量写入，覆盖已有记忆）
      * @param appId 应用Id
-     * @param chatMemory 历史聊天
+     * @param chatMemoryStore 记忆存储
      * @param maxCount 最大数量
-     * @return
+     * @return 加载的消息条数
+     */
+    int loadChatHistoryToMemory(Long appId, ChatMemoryStore chatMemoryStore, int maxCount);
+
+    /**
+     * 加载聊天记录到记忆存储（一次性批量写入，覆盖已有记忆）
+     * @param appId 应用Id
+     * @param chatMemoryStore 记忆存储
+     * @param maxCount 最大数量
+     * @param excludeLatest 是否排除最新一条消息（对话请求中最新的用户消息会由本轮对话写入记忆）
+     * @return 加载的消息条数
      */
-    int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount);
+    int loadChatHistoryToMemory(Long appId, ChatMemoryStore chatMemoryStore, int maxCount, boolean excludeLatest);
 }
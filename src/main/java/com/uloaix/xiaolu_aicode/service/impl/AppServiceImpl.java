@@ -2,20 +2,23 @@ package com.uloaix.xiaolu_aicode.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
 import com.uloaix.xiaolu_aicode.ai.AiCodeGenTypeRoutingService;
 import com.uloaix.xiaolu_aicode.ai.AiCodeGenTypeRoutingServiceFactory;
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessage;
 import com.uloaix.xiaolu_aicode.constant.AppConstant;
 import com.uloaix.xiaolu_aicode.core.AiCodeGeneratorFacade;
 import com.uloaix.xiaolu_aicode.core.builder.VueProjectBuilder;
 import com.uloaix.xiaolu_aicode.core.handler.StreamHandlerExecutor;
+import com.uloaix.xiaolu_aicode.core.handler.StreamOutput;
+import com.uloaix.xiaolu_aicode.event.AppDeployedEvent;
 import com.uloaix.xiaolu_aicode.exception.BusinessException;
 import com.uloaix.xiaolu_aicode.exception.ErrorCode;
 import com.uloaix.xiaolu_aicode.exception.ThrowUtils;
+import com.uloaix.xiaolu_aicode.manager.DeployReleaseManager;
 import com.uloaix.xiaolu_aicode.mapper.AppMapper;
 import com.uloaix.xiaolu_aicode.model.dto.app.AppAddRequest;
 import com.uloaix.xiaolu_aicode.model.dto.app.AppQueryRequest;
@@ -34,6 +37,7 @@ import com.uloaix.xiaolu_aicode.service.ChatHistoryService;
 import com.uloaix.xiaolu_aicode.service.UserService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -81,6 +85,12 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @Resource
     private AppVersionService appVersionService;
 
+    @Resource
+    private DeployReleaseManager deployReleaseManager;
+
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
+
 
 
     @Override
@@ -206,7 +216,7 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @RateLimit(limitType = RateLimitType.USER, rate = 5, rateInterval = 60, message = "AI 对话请求过于频繁，请稍后再试")
     @Override
-    public Flux<String> chatToGenCode(Long appId, String message, User loginUser) {
+    public Flux<StreamOutput> chatToGenCode(Long appId, String message, User loginUser) {
         // 1. 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
@@ -226,7 +236,7 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 5. 通过校验后，添加用户消息到对话历史
         chatHistoryService.addChatMessage(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
         // 6. 调用 AI 生成代码（流式）
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
         // 7. 收集 AI 响应内容并在完成后记录到对话历史
         return streamHandlerExecutor.doExecute(codeStream, chatHistoryService, appId, loginUser, codeGenTypeEnum);
 
@@ -273,10 +283,9 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             // 构建完成后，将构建完成的文件复制到部署目录
             sourceDir = distDir;
         }
-        // 7. 复制文件到部署目录
-        String deployDirPath = AppConstant.CODE_DEPLOY_ROOT_DIR + File.separator + deployKey;
+        // 7. 发布到部署目录：在新 release 中准备好全部文件（含 .gz / .br 预压缩副本）后原子切换
         try {
-            FileUtil.copyContent(sourceDir, new File(deployDirPath), true);
+            deployReleaseManager.publish(deployKey, sourceDir.toPath());
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "部署失败：" + e.getMessage());
         }
@@ -285,7 +294,10 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         updateApp.setId(appId);
         updateApp.setDeployKey(deployKey);
         updateApp.setDeployedTime(LocalDateTime.now());
+        updateApp.setDeployedVersion(resolvedVersion);
         boolean updateResult = this.updateById(updateApp);
+        // 通知静态资源路由表与热点缓存失效旧部署内容（在写入 deployKey 之后，路由重新加载时能查到应用的生成类型）
+        applicationEventPublisher.publishEvent(new AppDeployedEvent(appId, deployKey));
         ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "更新应用部署信息失败");
         // 9. 返回可访问的 URL
         String appDeployUrl =  String.format("%s/%s/", AppConstant.CODE_DEPLOY_HOST, deployKey);
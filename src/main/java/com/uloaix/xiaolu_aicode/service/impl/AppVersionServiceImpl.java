@@ -1,17 +1,24 @@
 package com.uloaix.xiaolu_aicode.service.impl;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.StrUtil;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.uloaix.xiaolu_aicode.core.builder.BuildPriority;
 import com.uloaix.xiaolu_aicode.core.builder.VueProjectBuilder;
+import com.uloaix.xiaolu_aicode.core.diff.UnifiedDiffWriter;
+import com.uloaix.xiaolu_aicode.event.AppVersionChangedEvent;
 import com.uloaix.xiaolu_aicode.exception.BusinessException;
 import com.uloaix.xiaolu_aicode.exception.ErrorCode;
 import com.uloaix.xiaolu_aicode.exception.ThrowUtils;
+import com.uloaix.xiaolu_aicode.manager.CodeBlobStoreManager;
 import com.uloaix.xiaolu_aicode.mapper.AppMapper;
 import com.uloaix.xiaolu_aicode.mapper.AppVersionMapper;
+import com.uloaix.xiaolu_aicode.model.dto.version.VersionManifestEntry;
 import com.uloaix.xiaolu_aicode.model.entity.App;
 import com.uloaix.xiaolu_aicode.model.entity.AppVersion;
 import com.uloaix.xiaolu_aicode.model.enums.AppGenStatusEnum;
@@ -22,21 +29,31 @@ import com.uloaix.xiaolu_aicode.model.vo.AppVersionFileDiffVO;
 import com.uloaix.xiaolu_aicode.service.AppVersionService;
 import com.uloaix.xiaolu_aicode.service.ScreenshotService;
 import com.uloaix.xiaolu_aicode.utils.AppVersionPathUtils;
+import com.uloaix.xiaolu_aicode.utils.FileDigestUtils;
+import com.uloaix.xiaolu_aicode.utils.FileDigestUtils.FileDigest;
+import com.uloaix.xiaolu_aicode.utils.VersionFileUtils;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 /**
@@ -55,6 +72,12 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
     @Resource
     private VueProjectBuilder vueProjectBuilder;
 
+    @Resource
+    private CodeBlobStoreManager codeBlobStoreManager;
+
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
+
     /**
      * 生成中的版本缓存（用于工具写入定位版本目录）
      */
@@ -73,6 +96,53 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
             .expireAfterAccess(Duration.ofMinutes(5))
             .build();
 
+    /**
+     * 内联返回行级差异的文件大小上限（新旧两侧合计），超过后需通过流式接口获取
+     */
+    private static final long INLINE_DIFF_MAX_BYTES = 256 * 1024;
+
+    /**
+     * 流式差异的单个文件大小上限
+     */
+    private static final long STREAM_DIFF_MAX_BYTES = 20L * 1024 * 1024;
+
+    /**
+     * 行级差异的编辑距离上限（超过后按整段替换输出）
+     */
+    private static final int DIFF_MAX_EDITS = 2000;
+
+    /**
+     * 版本对比结果缓存（appId:from:to），仅缓存两个版本均已生成完成的结果
+     */
+    private final Cache<String, List<AppVersionFileDiffVO>> versionDiffCache = Caffeine.newBuilder()
+            .maximumSize(500)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 文件摘要缓存：键为 路径 + 大小 + 修改时间，文件变化后自然失效
+     */
+    private final Cache<String, FileDigest> fileDigestCache = Caffeine.newBuilder()
+            .maximumSize(20000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 版本对比的文件摘要线程池（有界，队列满时由调用线程执行）
+     */
+    private final ExecutorService fileDigestExecutor = ExecutorBuilder.create()
+            .setCorePoolSize(Math.min(8, Runtime.getRuntime().availableProcessors()))
+            .setMaxPoolSize(Math.min(8, Runtime.getRuntime().availableProcessors()))
+            .setWorkQueue(new LinkedBlockingQueue<>(1000))
+            .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("version-diff-digest-").setDaemon(true).build())
+            .setHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+            .build();
+
+    @PreDestroy
+    public void shutdown() {
+        fileDigestExecutor.shutdownNow();
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public AppVersion createNewVersion(Long appId, CodeGenTypeEnum codeGenType, Long userId) {
@@ -83,17 +153,33 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         int currentVersion = getCurrentVersion(appId);
         int nextVersion = currentVersion + 1;
         String versionDir = AppVersionPathUtils.buildVersionDir(codeGenType, appId, nextVersion);
+        boolean cloneFailed = false;
+        boolean cloned = false;
         // Vue 项目：新版本默认继承上一版本代码，便于增量修改
         if (codeGenType == CodeGenTypeEnum.VUE_PROJECT) {
             String previousDir = currentVersion > 0
                     ? AppVersionPathUtils.buildVersionDir(codeGenType, appId, currentVersion)
                     : AppVersionPathUtils.buildBaseDir(codeGenType, appId);
+            // 硬链接克隆（写时复制）：未修改的文件与上一版本共享 inode，跳过 dist 等构建产物
             try {
                 if (new File(previousDir).exists()) {
-                    FileUtil.copyContent(new File(previousDir), new File(versionDir), true);
+                    long start = System.currentTimeMillis();
+                    int fileCount = VersionFileUtils.cloneWithHardLinks(Paths.get(previousDir), Paths.get(versionDir),
+                            VersionFileUtils.CLONE_EXCLUDED_DIRS);
+                    log.info("克隆上一版本代码完成，appId={}, files={}, cost={}ms", appId, fileCount, System.currentTimeMillis() - start);
+                    cloned = true;
                 }
             } catch (Exception e) {
                 log.warn("复制上一版本代码失败，appId={}, from={}, to={}, err={}", appId, previousDir, versionDir, e.getMessage());
+                cloneFailed = true;
+            }
+        }
+        // 克隆不完整时不建清单，由版本提交时完整计算；未克隆的版本（HTML / 多文件）不继承上一版本清单
+        if (!cloneFailed) {
+            try {
+                codeBlobStoreManager.initManifest(codeGenType, appId, cloned ? currentVersion : 0, nextVersion);
+            } catch (Exception e) {
+                log.warn("初始化版本清单失败，appId={}, version={}, err={}", appId, nextVersion, e.getMessage());
             }
         }
 
@@ -118,6 +204,7 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
 
         generatingVersionCache.put(appId, nextVersion);
         currentVersionCache.put(appId, nextVersion);
+        applicationEventPublisher.publishEvent(new AppVersionChangedEvent(appId));
         return appVersion;
     }
 
@@ -137,6 +224,8 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         appUpdate.setGenStatus(AppGenStatusEnum.READY.getValue());
         appMapper.update(appUpdate, true);
         generatingVersionCache.invalidate(appId);
+        applicationEventPublisher.publishEvent(new AppVersionChangedEvent(appId));
+        commitVersionAsync(appId, version);
     }
 
     @Override
@@ -155,6 +244,7 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         appUpdate.setGenStatus(AppGenStatusEnum.FAILED.getValue());
         appMapper.update(appUpdate, true);
         generatingVersionCache.invalidate(appId);
+        applicationEventPublisher.publishEvent(new AppVersionChangedEvent(appId));
         if (StrUtil.isNotBlank(reason)) {
             log.warn("版本生成失败 appId={}, version={}, reason={}", appId, version, reason);
         }
@@ -216,6 +306,15 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         ThrowUtils.throwIf(target == null, ErrorCode.NOT_FOUND_ERROR, "目标版本不存在");
         ThrowUtils.throwIf(AppVersionStatusEnum.FAILED.getValue().equals(target.getStatus()),
                 ErrorCode.OPERATION_ERROR, "目标版本不可用");
+        // 按版本清单补齐目录中缺失的文件
+        CodeGenTypeEnum codeGenType = CodeGenTypeEnum.getEnumByValue(target.getCodeGenType());
+        if (codeGenType != null) {
+            try {
+                codeBlobStoreManager.restoreVersion(codeGenType, appId, version);
+            } catch (Exception e) {
+                log.warn("按清单恢复版本文件失败，appId={}, version={}, err={}", appId, version, e.getMessage());
+            }
+        }
         App update = new App();
         update.setId(appId);
         update.setCurrentVersion(version);
@@ -224,6 +323,7 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         boolean updated = appMapper.update(update, true) > 0;
         if (updated) {
             currentVersionCache.put(appId, version);
+            applicationEventPublisher.publishEvent(new AppVersionChangedEvent(appId));
         }
         return updated;
     }
@@ -262,7 +362,23 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         diffVO.setCodeGenType(codeGenType.getValue());
         diffVO.setFromPreviewUrl(AppVersionPathUtils.buildPreviewUrl(codeGenType, appId, fromVersion));
         diffVO.setToPreviewUrl(AppVersionPathUtils.buildPreviewUrl(codeGenType, appId, toVersion));
-        diffVO.setFileDiffs(diffFiles(fromDir, toDir));
+        String diffCacheKey = appId + ":" + fromVersion + ":" + toVersion;
+        List<AppVersionFileDiffVO> fileDiffs = versionDiffCache.getIfPresent(diffCacheKey);
+        if (fileDiffs == null) {
+            // 两个版本都有清单时只合并清单，仅读取有变化的文件；否则退回目录遍历
+            Map<String, VersionManifestEntry> fromManifest = codeBlobStoreManager.readManifest(codeGenType, appId, fromVersion);
+            Map<String, VersionManifestEntry> toManifest = codeBlobStoreManager.readManifest(codeGenType, appId, toVersion);
+            if (fromManifest != null && toManifest != null) {
+                fileDiffs = diffManifests(codeGenType, appId, fromVersion, fromManifest, toVersion, toManifest);
+            } else {
+                fileDiffs = diffFiles(fromDir, toDir);
+            }
+            // 生成中的版本内容仍会变化，不缓存
+            if (isVersionsReady(appId, fromVersion, toVersion)) {
+                versionDiffCache.put(diffCacheKey, fileDiffs);
+            }
+        }
+        diffVO.setFileDiffs(fileDiffs);
 
         if (withScreenshot) {
             tryBuildVueProjectIfNeeded(codeGenType, fromDir);
@@ -290,39 +406,191 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         allPaths.addAll(baseFiles.keySet());
         allPaths.addAll(targetFiles.keySet());
 
-        List<AppVersionFileDiffVO> diffs = new ArrayList<>();
+        // 并行计算摘要；硬链接克隆出的同一 inode 直接判定为未变化，无需读取
+        Map<File, CompletableFuture<FileDigest>> digestFutures = new HashMap<>();
+        Set<String> changedPaths = new HashSet<>();
         for (String path : allPaths) {
             File baseFile = baseFiles.get(path);
             File targetFile = targetFiles.get(path);
+            if (baseFile != null && targetFile != null && isSameFile(baseFile, targetFile)) {
+                continue;
+            }
+            changedPaths.add(path);
+            boolean text = isTextFile(path);
+            for (File file : new File[]{baseFile, targetFile}) {
+                if (file != null) {
+                    digestFutures.put(file, CompletableFuture.supplyAsync(() -> digestFile(file, text), fileDigestExecutor));
+                }
+            }
+        }
+
+        List<AppVersionFileDiffVO> diffs = new ArrayList<>();
+        for (String path : changedPaths) {
+            File baseFile = baseFiles.get(path);
+            File targetFile = targetFiles.get(path);
+            FileDigest baseDigest = baseFile == null ? null : digestFutures.get(baseFile).join();
+            FileDigest targetDigest = targetFile == null ? null : digestFutures.get(targetFile).join();
+            String baseSha = baseDigest == null ? null : baseDigest.sha256();
+            String targetSha = targetDigest == null ? null : targetDigest.sha256();
             AppVersionFileDiffVO diffVO = new AppVersionFileDiffVO();
             diffVO.setPath(path);
+            diffVO.setBeforeSha(baseSha);
+            diffVO.setAfterSha(targetSha);
             if (baseFile == null) {
                 diffVO.setChangeType("added");
-                fillFileInfo(diffVO, null, targetFile);
             } else if (targetFile == null) {
                 diffVO.setChangeType("removed");
-                fillFileInfo(diffVO, baseFile, null);
+            } else if (baseSha != null && Objects.equals(baseSha, targetSha)) {
+                continue;
             } else {
-                String baseSha = calcSha256(baseFile);
-                String targetSha = calcSha256(targetFile);
-                diffVO.setBeforeSha(baseSha);
-                diffVO.setAfterSha(targetSha);
-                if (Objects.equals(baseSha, targetSha)) {
-                    diffVO.setChangeType("unchanged");
-                } else {
-                    diffVO.setChangeType("modified");
-                }
-                fillTextExcerpt(diffVO, baseFile, targetFile);
-            }
-            if (!"unchanged".equals(diffVO.getChangeType())) {
-                diffs.add(diffVO);
+                diffVO.setChangeType("modified");
             }
+            fillTextInfo(diffVO, baseDigest, targetDigest);
+            fillUnifiedDiff(diffVO, baseFile, targetFile);
+            diffs.add(diffVO);
         }
         return diffs.stream()
                 .sorted(Comparator.comparing(AppVersionFileDiffVO::getPath))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 异步把版本目录提交到内容存储（去重并生成版本清单），不阻塞生成流程
+     */
+    private void commitVersionAsync(Long appId, Integer version) {
+        AppVersion appVersion = this.getOne(QueryWrapper.create()
+                .eq("appId", appId)
+                .eq("version", version));
+        CodeGenTypeEnum codeGenType = appVersion == null ? null : CodeGenTypeEnum.getEnumByValue(appVersion.getCodeGenType());
+        if (codeGenType == null) {
+            return;
+        }
+        Thread.ofVirtual().name("code-blob-commit").start(() -> {
+            try {
+                codeBlobStoreManager.commitVersion(codeGenType, appId, version);
+            } catch (Exception e) {
+                log.warn("版本提交到内容存储失败，appId={}, version={}, err={}", appId, version, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void writeFileDiff(Long appId, int fromVersion, int toVersion, String path, HttpServletResponse response) throws IOException {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
+        ThrowUtils.throwIf(fromVersion <= 0 || toVersion <= 0, ErrorCode.PARAMS_ERROR, "版本号无效");
+        ThrowUtils.throwIf(StrUtil.isBlank(path), ErrorCode.PARAMS_ERROR, "文件路径不能为空");
+        App app = appMapper.selectOneById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        CodeGenTypeEnum codeGenType = CodeGenTypeEnum.getEnumByValue(app.getCodeGenType());
+        ThrowUtils.throwIf(codeGenType == null, ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
+
+        String relativePath = path.replace("\\", "/").replaceFirst("^/+", "");
+        File beforeFile = resolveDiffFile(codeGenType, appId, fromVersion, relativePath);
+        File afterFile = resolveDiffFile(codeGenType, appId, toVersion, relativePath);
+        ThrowUtils.throwIf(beforeFile == null && afterFile == null, ErrorCode.NOT_FOUND_ERROR, "文件在两个版本中均不存在");
+        long maxSize = Math.max(beforeFile == null ? 0 : beforeFile.length(), afterFile == null ? 0 : afterFile.length());
+        ThrowUtils.throwIf(maxSize > STREAM_DIFF_MAX_BYTES, ErrorCode.PARAMS_ERROR, "文件过大，无法对比");
+
+        // 二进制文件不做行级差异（按行切分没有意义，还会让差异计算跑满编辑距离上限）
+        if (!isTextFile(relativePath)) {
+            response.setContentType("text/plain;charset=UTF-8");
+            Writer writer = response.getWriter();
+            if (beforeFile == null || afterFile == null || Files.mismatch(beforeFile.toPath(), afterFile.toPath()) != -1) {
+                UnifiedDiffWriter.writeBinary(beforeFile == null ? null : relativePath, afterFile == null ? null : relativePath, writer);
+            }
+            writer.flush();
+            return;
+        }
+        List<String> beforeLines = readLines(beforeFile);
+        List<String> afterLines = readLines(afterFile);
+        // 校验与读取完成后再打开响应流，保证异常时仍能返回统一的错误响应
+        response.setContentType("text/plain;charset=UTF-8");
+        Writer writer = response.getWriter();
+        UnifiedDiffWriter.write(beforeFile == null ? null : relativePath, afterFile == null ? null : relativePath,
+                beforeLines, afterLines, DIFF_MAX_EDITS, UnifiedDiffWriter.DEFAULT_CONTEXT, writer);
+        writer.flush();
+    }
+
+    /**
+     * 解析参与对比的版本文件（防止路径越过版本目录）
+     *
+     * @return 文件，不存在返回 null
+     */
+    private File resolveDiffFile(CodeGenTypeEnum codeGenType, Long appId, int version, String relativePath) {
+        Path versionDir = Paths.get(buildVersionDir(codeGenType, appId, version)).toAbsolutePath().normalize();
+        ThrowUtils.throwIf(!versionDir.resolve(relativePath).normalize().startsWith(versionDir),
+                ErrorCode.PARAMS_ERROR, "文件路径无效");
+        File file = codeBlobStoreManager.resolveFile(codeGenType, appId, version, relativePath);
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * 小文件直接内联行级差异，超过上限时标记由前端走流式接口
+     */
+    private void fillUnifiedDiff(AppVersionFileDiffVO diffVO, File before, File after) {
+        if (!isTextFile(diffVO.getPath())) {
+            return;
+        }
+        long totalSize = (before == null ? 0 : before.length()) + (after == null ? 0 : after.length());
+        if (totalSize > INLINE_DIFF_MAX_BYTES) {
+            diffVO.setDiffTooLarge(true);
+            return;
+        }
+        try {
+            diffVO.setUnifiedDiff(UnifiedDiffWriter.format(before == null ? null : diffVO.getPath(),
+                    after == null ? null : diffVO.getPath(), readLines(before), readLines(after), DIFF_MAX_EDITS));
+            diffVO.setDiffTooLarge(false);
+        } catch (Exception e) {
+            log.warn("计算行级差异失败: {}, err={}", diffVO.getPath(), e.getMessage());
+        }
+    }
+
+    private List<String> readLines(File file) throws IOException {
+        if (file == null) {
+            return List.of();
+        }
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private boolean isVersionsReady(Long appId, int fromVersion, int toVersion) {
+        long readyCount = this.count(QueryWrapper.create()
+                .eq("appId", appId)
+                .in("version", fromVersion, toVersion)
+                .eq("status", AppVersionStatusEnum.READY.getValue()));
+        return readyCount == (fromVersion == toVersion ? 1 : 2);
+    }
+
+    /**
+     * 基于版本清单的差异对比：sha256 相同的文件直接跳过，只有新增、删除、修改的文件才读取内容
+     */
+    private List<AppVersionFileDiffVO> diffManifests(CodeGenTypeEnum codeGenType, Long appId,
+                                                     int fromVersion, Map<String, VersionManifestEntry> fromManifest,
+                                                     int toVersion, Map<String, VersionManifestEntry> toManifest) {
+        Set<String> allPaths = new TreeSet<>(fromManifest.keySet());
+        allPaths.addAll(toManifest.keySet());
+        List<AppVersionFileDiffVO> diffs = new ArrayList<>();
+        for (String path : allPaths) {
+            VersionManifestEntry before = fromManifest.get(path);
+            VersionManifestEntry after = toManifest.get(path);
+            if (before != null && after != null && Objects.equals(before.getSha256(), after.getSha256())) {
+                continue;
+            }
+            AppVersionFileDiffVO diffVO = new AppVersionFileDiffVO();
+            diffVO.setPath(path);
+            diffVO.setChangeType(before == null ? "added" : after == null ? "removed" : "modified");
+            diffVO.setBeforeSha(before == null ? null : before.getSha256());
+            diffVO.setAfterSha(after == null ? null : after.getSha256());
+            if (isTextFile(path)) {
+                File beforeFile = before == null ? null : codeBlobStoreManager.resolveFile(codeGenType, appId, fromVersion, path);
+                File afterFile = after == null ? null : codeBlobStoreManager.resolveFile(codeGenType, appId, toVersion, path);
+                fillTextInfo(diffVO, digestFile(beforeFile, true), digestFile(afterFile, true));
+                fillUnifiedDiff(diffVO, beforeFile, afterFile);
+            }
+            diffs.add(diffVO);
+        }
+        return diffs;
+    }
+
     private void tryBuildVueProjectIfNeeded(CodeGenTypeEnum codeGenType, String projectDir) {
         if (codeGenType != CodeGenTypeEnum.VUE_PROJECT) {
             return;
@@ -331,7 +599,7 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         if (distDir.exists() && distDir.isDirectory()) {
             return;
         }
-        boolean success = vueProjectBuilder.buildProject(projectDir);
+        boolean success = vueProjectBuilder.buildProject(projectDir, BuildPriority.BACKGROUND);
         if (!success) {
             log.warn("Vue 版本构建失败，无法生成预览截图: {}", projectDir);
         }
@@ -367,20 +635,61 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
                 || relativePath.endsWith(".tmp");
     }
 
-    private void fillFileInfo(AppVersionFileDiffVO diffVO, File before, File after) {
-        diffVO.setBeforeSha(before == null ? null : calcSha256(before));
-        diffVO.setAfterSha(after == null ? null : calcSha256(after));
-        fillTextExcerpt(diffVO, before, after);
+    private void fillTextInfo(AppVersionFileDiffVO diffVO, FileDigest before, FileDigest after) {
+        if (before != null && before.lines() != null) {
+            diffVO.setBeforeLines(before.lines());
+            diffVO.setBeforeExcerpt(before.excerpt());
+        }
+        if (after != null && after.lines() != null) {
+            diffVO.setAfterLines(after.lines());
+            diffVO.setAfterExcerpt(after.excerpt());
+        }
     }
 
-    private void fillTextExcerpt(AppVersionFileDiffVO diffVO, File before, File after) {
-        if (before != null && isTextFile(before.getName())) {
-            diffVO.setBeforeLines(countLines(before));
-            diffVO.setBeforeExcerpt(readExcerpt(before, 2000));
+    @Override
+    public void evictVersionCaches(CodeGenTypeEnum codeGenType, Long appId, int version) {
+        String appPrefix = appId + ":";
+        String versionText = String.valueOf(version);
+        versionDiffCache.asMap().keySet().removeIf(key -> {
+            if (!key.startsWith(appPrefix)) {
+                return false;
+            }
+            String[] parts = key.split(":");
+            return versionText.equals(parts[1]) || versionText.equals(parts[2]);
+        });
+        String dirPrefix = new File(AppVersionPathUtils.buildVersionDir(codeGenType, appId, version)).getAbsolutePath() + File.separator;
+        fileDigestCache.asMap().keySet().removeIf(key -> key.startsWith(dirPrefix));
+    }
+
+    /**
+     * 计算文件摘要（单次读取得到 sha256、行数与摘录），按 路径 + 大小 + 修改时间 缓存
+     *
+     * @return 摘要，读取失败返回 null
+     */
+    private FileDigest digestFile(File file, boolean text) {
+        if (file == null || !file.isFile()) {
+            return null;
         }
-        if (after != null && isTextFile(after.getName())) {
-            diffVO.setAfterLines(countLines(after));
-            diffVO.setAfterExcerpt(readExcerpt(after, 2000));
+        String cacheKey = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified() + "|" + text;
+        FileDigest cached = fileDigestCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            FileDigest digest = FileDigestUtils.digest(file, text, 2000);
+            fileDigestCache.put(cacheKey, digest);
+            return digest;
+        } catch (Exception e) {
+            log.warn("计算文件摘要失败: {}, err={}", file.getAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isSameFile(File first, File second) {
+        try {
+            return Files.isSameFile(first.toPath(), second.toPath());
+        } catch (Exception e) {
+            return false;
         }
     }
 
@@ -399,55 +708,4 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
                 || lower.endsWith(".xml")
                 || lower.endsWith(".svg");
     }
-
-    private String readExcerpt(File file, int maxChars) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            char[] buffer = new char[512];
-            int total = 0;
-            int read;
-            while ((read = reader.read(buffer)) != -1 && total < maxChars) {
-                int len = Math.min(read, maxChars - total);
-                sb.append(buffer, 0, len);
-                total += len;
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private int countLines(File file) {
-        int lines = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            while (reader.readLine() != null) {
-                lines++;
-            }
-        } catch (Exception e) {
-            return 0;
-        }
-        return lines;
-    }
-
-    private String calcSha256(File file) {
-        if (file == null || !file.exists() || !file.isFile()) {
-            return null;
-        }
-        try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[8192];
-            int read;
-            while ((read = inputStream.read(buffer)) != -1) {
-                digest.update(buffer, 0, read);
-            }
-            byte[] hash = digest.digest();
-            StringBuilder hex = new StringBuilder();
-            for (byte b : hash) {
-                hex.append(String.format("%02x", b));
-            }
-            return hex.toString();
-        } catch (Exception e) {
-            return null;
-        }
-    }
 }
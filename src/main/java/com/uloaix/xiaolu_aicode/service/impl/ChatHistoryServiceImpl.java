@@ -8,6 +8,7 @@ import com.mybatisflex.spring.service.impl.ServiceImpl;
 import com.uloaix.xiaolu_aicode.constant.UserConstant;
 import com.uloaix.xiaolu_aicode.exception.ErrorCode;
 import com.uloaix.xiaolu_aicode.exception.ThrowUtils;
+import com.uloaix.xiaolu_aicode.manager.ChatHistoryWriteBehindManager;
 import com.uloaix.xiaolu_aicode.mapper.ChatHistoryMapper;
 import com.uloaix.xiaolu_aicode.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.uloaix.xiaolu_aicode.model.entity.App;
@@ -16,15 +17,18 @@ import com.uloaix.xiaolu_aicode.model.entity.User;
 import com.uloaix.xiaolu_aicode.model.enums.ChatHistoryMessageTypeEnum;
 import com.uloaix.xiaolu_aicode.service.AppService;
 import com.uloaix.xiaolu_aicode.service.ChatHistoryService;
+import com.uloaix.xiaolu_aicode.utils.ChatHistoryFileRefUtils;
 import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -39,6 +43,10 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Resource
     @Lazy
     private AppService appService;
+
+    @Resource
+    private ChatHistoryWriteBehindManager chatHistoryWriteBehindManager;
+
     @Override
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId) {
         //1. 基础校验
@@ -49,18 +57,30 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         // 验证消息类型是否有效
         ChatHistoryMessageTypeEnum messageTypeEnum = ChatHistoryMessageTypeEnum.getEnumByValue(messageType);
         ThrowUtils.throwIf(messageTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的消息类型: " + messageType);
+        // 创建时间在入队时确定，保证异步批量写入后的排序与调用顺序一致
+        LocalDateTime now = LocalDateTime.now();
         ChatHistory chatHistory = ChatHistory.builder()
                 .appId(appId)
                 .message(message)
                 .messageType(messageType)
                 .userId(userId)
+                .createTime(now)
+                .updateTime(now)
+                .isDelete(0)
                 .build();
-        return this.save(chatHistory);
+        if (!chatHistoryWriteBehindManager.isEnabled()) {
+            return this.save(chatHistory);
+        }
+        // 异步批量写入，不阻塞请求线程和流式线程
+        chatHistoryWriteBehindManager.enqueue(chatHistory);
+        return true;
     }
 
     @Override
     public boolean  deleteByAppId(Long appId) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        // 先落库待写入的消息，避免删除后又被写入
+        chatHistoryWriteBehindManager.flush();
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq("appId", appId);
         return this.remove(queryWrapper);
@@ -119,38 +139,52 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         queryRequest.setAppId(appId);
         queryRequest.setLastCreateTime(lastCreateTime);
         QueryWrapper queryWrapper = this.getQueryWrapper(queryRequest);
-        // 查询数据
-        return this.page(Page.of(1, pageSize), queryWrapper);
+        // 查询数据（先落库待写入的消息）
+        chatHistoryWriteBehindManager.flush();
+        Page<ChatHistory> page = this.page(Page.of(1, pageSize), queryWrapper);
+        // 展开 AI 消息中的文件引用，前端仍能看到完整代码
+        for (ChatHistory history : page.getRecords()) {
+            if (ChatHistoryMessageTypeEnum.AI.getValue().equals(history.getMessageType())) {
+                history.setMessage(ChatHistoryFileRefUtils.expandFileRefs(history.getMessage(), appId));
+            }
+        }
+        return page;
     }
 
 
     @Override
-    public int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+    public int loadChatHistoryToMemory(Long appId, ChatMemoryStore chatMemoryStore, int maxCount) {
+        return loadChatHistoryToMemory(appId, chatMemoryStore, maxCount, true);
+    }
+
+    @Override
+    public int loadChatHistoryToMemory(Long appId, ChatMemoryStore chatMemoryStore, int maxCount, boolean excludeLatest) {
         try {
-            // 直接构造查询条件，起始点为 1 而不是 0，用于排除最新的用户消息
+            // 先落库待写入的消息，保证最新的用户消息已入库（下面的 offset 依赖它）
+            chatHistoryWriteBehindManager.flush();
+            // 对话请求中起始点为 1 而不是 0，用于排除最新的用户消息；预热时没有待处理的用户消息，从 0 开始
             QueryWrapper queryWrapper = QueryWrapper.create()
                     .eq(ChatHistory::getAppId, appId)
                     .orderBy(ChatHistory::getCreateTime, false)
-                    .limit(1, maxCount);
+                    .limit(excludeLatest ? 1 : 0, maxCount);
             List<ChatHistory> historyList = this.list(queryWrapper);
             if (CollUtil.isEmpty(historyList)) {
                 return 0;
             }
             // 反转列表，确保按时间正序（老的在前，新的在后）
             historyList = historyList.reversed();
-            // 按时间顺序添加到记忆中
-            int loadedCount = 0;
-            // 先清理历史缓存，防止重复加载
-            chatMemory.clear();
+            // 按时间顺序组装消息（AI 消息中的文件引用保持原样，不展开文件内容以节省上下文）
+            List<ChatMessage> messages = new ArrayList<>(historyList.size());
             for (ChatHistory history : historyList) {
                 if (ChatHistoryMessageTypeEnum.USER.getValue().equals(history.getMessageType())) {
-                    chatMemory.add(UserMessage.from(history.getMessage()));
-                    loadedCount++;
+                    messages.add(UserMessage.from(history.getMessage()));
                 } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(history.getMessageType())) {
-                    chatMemory.add(AiMessage.from(history.getMessage()));
-                    loadedCount++;
+                    messages.add(AiMessage.from(history.getMessage()));
                 }
             }
+            // 一次性覆盖写入记忆存储（替代 clear + 逐条 add，每次 add 都是一次 Redis 读改写）
+            chatMemoryStore.updateMessages(appId, messages);
+            int loadedCount = messages.size();
             log.info("成功为 appId: {} 加载了 {} 条历史对话", appId, loadedCount);
             return loadedCount;
         } catch (Exception e) {
@@ -0,0 +1,88 @@
+package com.uloaix.xiaolu_aicode.utils;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 对话历史文件引用工具类
+ * <p>
+ * 写文件类工具调用在对话历史中只保存引用（版本号 + 路径 + 内容 sha256），不再内联完整文件内容，
+ * 以减小 chat_history 单行体积、记忆加载耗时和 LLM 上下文 token；前端查询历史时再按引用从版本目录展开。
+ */
+@Slf4j
+public final class ChatHistoryFileRefUtils {
+
+    private static final String FILE_REF_PREFIX = "{{file-ref ";
+
+    /**
+     * 引用格式：{{file-ref v=版本 sha256=内容摘要 path=相对路径}}
+     */
+    private static final Pattern FILE_REF_PATTERN = Pattern.compile("\\{\\{file-ref v=(\\d+) sha256=([0-9a-f]{64}) path=(.+?)}}");
+
+    private ChatHistoryFileRefUtils() {
+    }
+
+    /**
+     * 构建文件引用
+     *
+     * @param version      写入时的版本号
+     * @param relativePath 文件相对路径
+     * @param content      文件内容
+     * @return 引用标记
+     */
+    public static String buildFileRef(int version, String relativePath, String content) {
+        String sha256 = DigestUtil.sha256Hex(StrUtil.nullToEmpty(content));
+        return String.format("%sv=%d sha256=%s path=%s}}", FILE_REF_PREFIX, Math.max(version, 0), sha256, relativePath);
+    }
+
+    /**
+     * 将消息中的文件引用展开为代码块（用于前端展示）
+     *
+     * @param message 对话消息
+     * @param appId   应用ID
+     * @return 展开后的消息，不含引用时原样返回
+     */
+    public static String expandFileRefs(String message, Long appId) {
+        if (message == null || !message.contains(FILE_REF_PREFIX)) {
+            return message;
+        }
+        Matcher matcher = FILE_REF_PATTERN.matcher(message);
+        StringBuilder result = new StringBuilder(message.length());
+        while (matcher.find()) {
+            int version = Integer.parseInt(matcher.group(1));
+            String expanded = expandFileRef(appId, version, matcher.group(2), matcher.group(3));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(expanded));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String expandFileRef(Long appId, int version, String sha256, String relativePath) {
+        String suffix = FileUtil.getSuffix(relativePath);
+        try {
+            Path versionDir = Paths.get(AppVersionPathUtils.buildVersionDir(CodeGenTypeEnum.VUE_PROJECT, appId, version))
+                    .toAbsolutePath().normalize();
+            Path file = versionDir.resolve(relativePath).normalize();
+            // 防止引用路径越过版本目录
+            if (!file.startsWith(versionDir) || !Files.isRegularFile(file)) {
+                return "（文件内容已不可用）";
+            }
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            String note = sha256.equals(DigestUtil.sha256Hex(content)) ? "" : "（该文件在写入后已被修改，以下为当前内容）\n";
+            return String.format("%s```%s\n%s\n```", note, suffix, content);
+        } catch (Exception e) {
+            log.warn("展开文件引用失败，appId: {}, version: {}, path: {}", appId, version, relativePath, e);
+            return "（文件内容读取失败）";
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.uloaix.xiaolu_aicode.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * 文件摘要工具类
+ * <p>
+ * 一次顺序读取同时得到 sha256、行数与开头摘录，避免对同一文件分别打开多次。
+ */
+public final class FileDigestUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileDigestUtils() {
+    }
+
+    /**
+     * 文件摘要
+     *
+     * @param sha256  内容 sha256
+     * @param lines   行数（非文本文件为 null）
+     * @param excerpt 开头摘录（非文本文件为 null）
+     */
+    public record FileDigest(String sha256, Integer lines, String excerpt) {
+    }
+
+    /**
+     * 计算文件摘要
+     *
+     * @param file            文件
+     * @param text            是否为文本文件（文本文件额外统计行数与摘录）
+     * @param maxExcerptChars 摘录最大字符数
+     */
+    public static FileDigest digest(File file, boolean text, int maxExcerptChars) throws IOException {
+        MessageDigest messageDigest = newSha256();
+        // UTF-8 单个字符最多 4 字节，按字符上限的 4 倍保留开头字节即可得到完整摘录
+        byte[] head = text ? new byte[Math.max(0, maxExcerptChars) * 4] : null;
+        int headLength = 0;
+        int lines = 0;
+        int previous = -1;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+                if (!text) {
+                    continue;
+                }
+                if (headLength < head.length) {
+                    int length = Math.min(read, head.length - headLength);
+                    System.arraycopy(buffer, 0, head, headLength, length);
+                    headLength += length;
+                }
+                // 与 BufferedReader.readLine 一致：\n、\r、\r\n 均视为一次换行
+                for (int i = 0; i < read; i++) {
+                    int current = buffer[i] & 0xFF;
+                    if (current == '\r' || (current == '\n' && previous != '\r')) {
+                        lines++;
+                    }
+                    previous = current;
+                }
+            }
+        }
+        if (text && previous != -1 && previous != '\n' && previous != '\r') {
+            // 没有换行结尾的最后一行
+            lines++;
+        }
+        String sha256 = HexFormat.of().formatHex(messageDigest.digest());
+        if (!text) {
+            return new FileDigest(sha256, null, null);
+        }
+        return new FileDigest(sha256, lines, decodeExcerpt(Arrays.copyOf(head, headLength), maxExcerptChars));
+    }
+
+    private static String decodeExcerpt(byte[] bytes, int maxChars) {
+        try {
+            String decoded = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(ByteBuffer.wrap(bytes))
+                    .toString();
+            return decoded.length() > maxChars ? decoded.substring(0, maxChars) : decoded;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
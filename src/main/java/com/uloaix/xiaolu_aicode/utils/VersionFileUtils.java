@@ -0,0 +1,292 @@
+package com.uloaix.xiaolu_aicode.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 版本目录文件工具类（写时复制）
+ * <p>
+ * 新版本目录通过硬链接继承上一版本的文件：未修改的文件在各版本间共享同一个 inode，
+ * 只有被重新写入的文件才会产生新 inode。因此所有写入版本目录的操作都必须使用
+ * {@link #writeAtomically}（写临时文件后原子替换），不能原地截断写入，否则会同时改掉旧版本的文件。
+ */
+@Slf4j
+public final class VersionFileUtils {
+
+    /**
+     * 克隆时跳过的目录（相对源目录的路径）：构建产物与构建缓存由新版本重新生成
+     */
+    public static final Set<String> CLONE_EXCLUDED_DIRS = Set.of("dist", "node_modules/.vite", "node_modules/.cache");
+
+    private VersionFileUtils() {
+    }
+
+    /**
+     * 克隆目录：普通文件建立硬链接（失败时退回复制），符号链接按原样重建
+     *
+     * @param source       源目录
+     * @param target       目标目录
+     * @param excludedDirs 跳过的目录（相对源目录，使用 / 分隔）
+     * @return 克隆的文件数
+     */
+    public static int cloneWithHardLinks(Path source, Path target, Set<String> excludedDirs) throws IOException {
+        AtomicInteger linked = new AtomicInteger();
+        AtomicInteger copied = new AtomicInteger();
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path relative = source.relativize(dir);
+                if (!relative.toString().isEmpty() && excludedDirs.contains(relative.toString().replace('\\', '/'))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(relative));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path destination = target.resolve(source.relativize(file));
+                if (attrs.isSymbolicLink()) {
+                    Files.createSymbolicLink(destination, Files.readSymbolicLink(file));
+                    return FileVisitResult.CONTINUE;
+                }
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                try {
+                    Files.createLink(destination, file);
+                    linked.incrementAndGet();
+                } catch (UnsupportedOperationException | IOException e) {
+                    if (e instanceof FileAlreadyExistsException) {
+                        throw (FileAlreadyExistsException) e;
+                    }
+                    // 跨文件系统或不支持硬链接时退回复制
+                    Files.copy(file, destination, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                    copied.incrementAndGet();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (copied.get() > 0) {
+            log.warn("硬链接不可用，{} 个文件退回复制，from={}, to={}", copied.get(), source, target);
+        }
+        return linked.get() + copied.get();
+    }
+
+    /**
+     * 删除目录（不跟随符号链接）
+     *
+     * @param dir 目录
+     * @return 实际释放的字节数（只统计没有其它硬链接的文件）
+     */
+    public static long deleteDirectory(Path dir) throws IOException {
+        if (!Files.exists(dir, LinkOption.NOFOLLOW_LINKS)) {
+            return 0;
+        }
+        long[] reclaimed = {0};
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && linkCount(file) <= 1) {
+                    reclaimed[0] += attrs.size();
+                }
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return reclaimed[0];
+    }
+
+    /**
+     * 文件硬链接数（文件系统不支持时返回 1）
+     */
+    public static int linkCount(Path file) {
+        try {
+            return (Integer) Files.getAttribute(file, "unix:nlink", LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * 原子写入文件：先写同目录临时文件，再原子替换目标文件（产生新 inode，不影响共享该文件的其它版本）
+     *
+     * @param path    目标文件
+     * @param content 文件内容
+     */
+    public static void writeAtomically(Path path, byte[] content) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, "." + path.getFileName(), ".tmp");
+        try {
+            Files.write(tempFile, content);
+            try {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 断开硬链接：文件与其它路径共享 inode 时，原子替换为内容相同的独立副本（供会原地改写文件的外部工具使用）
+     *
+     * @param file 文件（不存在或未共享时不做处理）
+     * @return 是否断开了链接
+     */
+    public static boolean detachHardLink(Path file) throws IOException {
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) || linkCount(file) <= 1) {
+            return false;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Path tempFile = parent.resolve("." + file.getFileName() + "." + System.nanoTime() + ".tmp");
+        try {
+            Files.copy(file, tempFile, StandardCopyOption.COPY_ATTRIBUTES);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return true;
+    }
+
+    /**
+     * 原子地把目标路径替换为源文件的硬链接（不支持硬链接时退回复制）
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     */
+    public static void linkAtomically(Path source, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = parent.resolve("." + target.getFileName() + "." + System.nanoTime() + ".tmp");
+        try {
+            try {
+                Files.createLink(tempFile, source);
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 复制目录（真实复制而非硬链接，用于源目录之后会被原地改写的场景）
+     *
+     * @param source 源目录
+     * @param target 目标目录（不存在时创建）
+     */
+    public static void copyDirectory(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile()) {
+                    Files.copy(file, target.resolve(source.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 复制目录，与基准目录中内容相同的文件改为硬链接基准目录的文件
+     * <p>
+     * 大小与修改时间相同视为未变化，修改时间不同时再比较内容（重新构建的产物内容常常不变）；
+     * 复用基准文件时一并链接其附属文件（如预压缩副本 .gz / .br）。新文件保留源文件的修改时间。
+     *
+     * @param source           源目录
+     * @param target           目标目录（不存在时创建）
+     * @param base             基准目录（为 null 时全部复制）
+     * @param siblingSuffixes  随基准文件一起复用的附属文件后缀
+     * @return 复用（硬链接）的文件数
+     */
+    public static int copyReusingBase(Path source, Path target, Path base, Set<String> siblingSuffixes) throws IOException {
+        AtomicInteger reused = new AtomicInteger();
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path relative = source.relativize(file);
+                Path destination = target.resolve(relative);
+                Path baseFile = base == null ? null : base.resolve(relative);
+                if (baseFile != null && isSameContent(file, attrs, baseFile)) {
+                    try {
+                        Files.deleteIfExists(destination);
+                        Files.createLink(destination, baseFile);
+                        for (String suffix : siblingSuffixes) {
+                            Path baseSibling = baseFile.resolveSibling(baseFile.getFileName() + suffix);
+                            Path sibling = destination.resolveSibling(destination.getFileName() + suffix);
+                            if (Files.isRegularFile(baseSibling, LinkOption.NOFOLLOW_LINKS) && !Files.exists(sibling)) {
+                                Files.createLink(sibling, baseSibling);
+                            }
+                        }
+                        reused.incrementAndGet();
+                        return FileVisitResult.CONTINUE;
+                    } catch (UnsupportedOperationException | IOException e) {
+                        // 不支持硬链接时退回复制
+                        log.debug("硬链接基准文件失败，改为复制: {}", e.getMessage());
+                    }
+                }
+                Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return reused.get();
+    }
+
+    private static boolean isSameContent(Path file, BasicFileAttributes attrs, Path baseFile) throws IOException {
+        if (!Files.isRegularFile(baseFile, LinkOption.NOFOLLOW_LINKS) || Files.size(baseFile) != attrs.size()) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(baseFile).equals(attrs.lastModifiedTime())) {
+            return true;
+        }
+        return Files.mismatch(file, baseFile) == -1;
+    }
+}
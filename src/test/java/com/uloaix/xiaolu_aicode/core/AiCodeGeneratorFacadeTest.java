@@ -1,6 +1,8 @@
 package com.uloaix.xiaolu_aicode.core;
 
 import com.uloaix.xiaolu_aicode.ai.AiCodeGenTypeRoutingService;
+import com.uloaix.xiaolu_aicode.ai.model.message.AiResponseMessage;
+import com.uloaix.xiaolu_aicode.ai.model.message.StreamMessage;
 import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +13,7 @@ import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @SpringBootTest
 @Slf4j
@@ -30,26 +33,32 @@ class AiCodeGeneratorFacadeTest {
 
     @Test
     void generateAndSaveCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("任务记录网站", CodeGenTypeEnum.MULTI_FILE,1L);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("任务记录网站", CodeGenTypeEnum.MULTI_FILE,1L);
         // 阻塞等待所有数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         // 验证结果
         Assertions.assertNotNull(result);
-        String completeContent = String.join("", result);
+        String completeContent = result.stream()
+                .filter(AiResponseMessage.class::isInstance)
+                .map(message -> ((AiResponseMessage) message).getData())
+                .collect(Collectors.joining());
         Assertions.assertNotNull(completeContent);
     }
 
 
     @Test
     void generateVueProjectCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
                 "简单的任务记录网站，总代码量不超过 200 行",
                 CodeGenTypeEnum.VUE_PROJECT, 1L);
         // 阻塞等待所有数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         // 验证结果
         Assertions.assertNotNull(result);
-        String completeContent = String.join("", result);
+        String completeContent = result.stream()
+                .filter(AiResponseMessage.class::isInstance)
+                .map(message -> ((AiResponseMessage) message).getData())
+                .collect(Collectors.joining());
         Assertions.assertNotNull(completeContent);
     }
 
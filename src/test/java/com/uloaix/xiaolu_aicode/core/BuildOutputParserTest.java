@@ -0,0 +1,73 @@
+package com.uloaix.xiaolu_aicode.core;
+
+import com.uloaix.xiaolu_aicode.core.progress.BuildOutputParser;
+import com.uloaix.xiaolu_aicode.core.progress.BuildOutputParser.Progress;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildOutputParserTest {
+
+    @Test
+    void installProgressGrowsWithFetchesAndEndsOnSummary() {
+        BuildOutputParser parser = BuildOutputParser.forInstall();
+        List<Integer> percents = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Progress progress = parser.parse("npm http fetch GET 200 https://registry.npmjs.org/pkg-" + i + " 12ms (cache miss)");
+            if (progress != null) {
+                percents.add(progress.percent());
+            }
+        }
+        assertTrue(percents.size() < 300);
+        for (int i = 1; i < percents.size(); i++) {
+            assertTrue(percents.get(i) > percents.get(i - 1));
+        }
+        assertTrue(percents.get(percents.size() - 1) < BuildOutputParser.INSTALL_END);
+        assertNull(parser.parse("npm warn deprecated inflight@1.0.6: This module is not supported"));
+
+        Progress done = parser.parse("added 35 packages in 8s");
+        assertEquals(BuildOutputParser.INSTALL_END, done.percent());
+        assertEquals("依赖安装完成，共 35 个包", done.message());
+    }
+
+    @Test
+    void buildProgressFollowsViteStages() {
+        BuildOutputParser parser = BuildOutputParser.forBuild();
+        String[] output = {
+                "",
+                "> vite-project@0.0.0 build",
+                "> vite build",
+                "",
+                BuildOutputParser.stripAnsi("\u001B[36mvite v5.4.2 \u001B[32mbuilding for production...\u001B[39m"),
+                "transforming...",
+                "✓ 42 modules transformed.",
+                "rendering chunks...",
+                "computing gzip size...",
+                "dist/index.html                  0.46 kB │ gzip:  0.30 kB",
+                "✓ built in 1.02s"
+        };
+        List<Progress> progresses = new ArrayList<>();
+        for (String line : output) {
+            Progress progress = parser.parse(line);
+            if (progress != null) {
+                progresses.add(progress);
+            }
+        }
+        assertEquals(List.of(62, 65, 80, 85, 90, BuildOutputParser.BUILD_END),
+                progresses.stream().map(Progress::percent).toList());
+        assertEquals("已转换 42 个模块", progresses.get(2).message());
+        // 进度不回退
+        assertNull(parser.parse("transforming..."));
+    }
+
+    @Test
+    void httpFetchLinesAreNoise() {
+        assertTrue(BuildOutputParser.isNoise("npm http fetch GET 200 https://registry.npmjs.org/vue 5ms (cache hit)"));
+        assertEquals("error", BuildOutputParser.stripAnsi("\u001B[31merror\u001B[0m"));
+    }
+}
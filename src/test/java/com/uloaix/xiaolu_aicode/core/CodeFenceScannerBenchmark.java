@@ -0,0 +1,97 @@
+package com.uloaix.xiaolu_aicode.core;
+
+import com.uloaix.xiaolu_aicode.core.parser.CodeBlock;
+import com.uloaix.xiaolu_aicode.core.parser.CodeFenceScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 代码块提取基准：单次扫描 vs 原先的三个懒惰正则
+ * <p>
+ * 运行方式：直接执行 main 方法（不会被 surefire 当作测试运行）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeFenceScannerBenchmark {
+
+    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 模拟响应大小（KB）
+     */
+    @Param({"10", "100", "500"})
+    private int sizeKb;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        content = buildResponse(sizeKb * 1024);
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        blackhole.consume(find(HTML_CODE_PATTERN));
+        blackhole.consume(find(CSS_CODE_PATTERN));
+        blackhole.consume(find(JS_CODE_PATTERN));
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        CodeFenceScanner.scan(content, (CodeBlock block) -> blackhole.consume(block.content()));
+    }
+
+    private String find(Pattern pattern) {
+        Matcher matcher = pattern.matcher(content);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 构造接近真实输出的响应：说明文字 + html/css/js 三个代码块，三者平分目标大小
+     */
+    private static String buildResponse(int targetSize) {
+        int blockSize = targetSize / 3;
+        return "下面是生成的网站代码：\n```html\n"
+                + repeat("<div class=\"card\"><p>Hello `World`</p></div>\n", blockSize)
+                + "```\n样式如下：\n```css\n"
+                + repeat(".card { color: #333; margin: 8px; }\n", blockSize)
+                + "```\n脚本如下：\n```javascript\n"
+                + repeat("document.querySelectorAll('.card').forEach(e => e.remove());\n", blockSize)
+                + "```\n完成。\n";
+    }
+
+    private static String repeat(String line, int size) {
+        return line.repeat(Math.max(1, size / line.length()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CodeFenceScannerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.uloaix.xiaolu_aicode.core;
+
+import com.uloaix.xiaolu_aicode.ai.model.MultiFileCodeResult;
+import com.uloaix.xiaolu_aicode.core.parser.CodeBlock;
+import com.uloaix.xiaolu_aicode.core.parser.CodeFenceScanner;
+import com.uloaix.xiaolu_aicode.core.parser.MultiFileCodeParser;
+import com.uloaix.xiaolu_aicode.core.parser.StreamingCodeParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodeFenceScannerTest {
+
+    private static final String CONTENT = """
+            说明文字，使用 ```npm i``` 安装
+            ````HTML
+            <h1>Hello `World`</h1>
+            ```
+            ```css
+            h1 { color: red; }
+            ```
+            ```js
+            console.log(1);
+            ```
+            ```html
+            <p>第二个 html 块</p>
+            ```
+            ```css
+            未闭合
+            """;
+
+    @Test
+    void scanSameAsStreamingParser() {
+        List<CodeBlock> streamed = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(streamed::add);
+        parser.feed(CONTENT);
+        parser.finish();
+        List<CodeBlock> scanned = CodeFenceScanner.scan(CONTENT);
+        assertEquals(4, scanned.size());
+        assertEquals(streamed, scanned);
+    }
+
+    @Test
+    void parseMultiFileCode() {
+        MultiFileCodeResult result = new MultiFileCodeParser().parseCode(CONTENT);
+        assertEquals("<h1>Hello `World`</h1>", result.getHtmlCode());
+        assertEquals("h1 { color: red; }", result.getCssCode());
+        assertEquals("console.log(1);", result.getJsCode());
+    }
+
+    @Test
+    void findFirst() {
+        assertTrue(CodeFenceScanner.findFirst(CONTENT, "html").contains("Hello"));
+        assertNull(CodeFenceScanner.findFirst(CONTENT, "vue"));
+        assertNull(CodeFenceScanner.findFirst(null, "html"));
+    }
+}
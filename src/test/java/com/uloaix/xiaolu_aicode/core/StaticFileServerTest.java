@@ -0,0 +1,100 @@
+package com.uloaix.xiaolu_aicode.core;
+
+import com.uloaix.xiaolu_aicode.core.staticserve.HotAssetCache.CachedAsset;
+import com.uloaix.xiaolu_aicode.core.staticserve.HotAssetCache.Variant;
+import com.uloaix.xiaolu_aicode.core.staticserve.MimeTypes;
+import com.uloaix.xiaolu_aicode.core.staticserve.StaticFileServer;
+import com.uloaix.xiaolu_aicode.core.staticserve.StaticFileServer.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticFileServerTest {
+
+    @Test
+    void parsesSingleByteRanges() {
+        assertEquals(new ByteRange(0, 99), StaticFileServer.parseRange("bytes=0-99", 1000));
+        assertEquals(new ByteRange(500, 999), StaticFileServer.parseRange("bytes=500-", 1000));
+        assertEquals(new ByteRange(900, 999), StaticFileServer.parseRange("bytes=-100", 1000));
+        // 结束位置超出文件大小时截断到末尾
+        assertEquals(new ByteRange(990, 999), StaticFileServer.parseRange("bytes=990-2000", 1000));
+        assertEquals(new ByteRange(0, 999), StaticFileServer.parseRange("bytes=-5000", 1000));
+    }
+
+    @Test
+    void rejectsUnsatisfiableAndMultipartRanges() {
+        assertNull(StaticFileServer.parseRange("bytes=1000-", 1000));
+        assertTrue(StaticFileServer.isSingleByteRange("bytes=1000-"));
+        // 多段范围与非法格式按完整内容响应，而不是 416
+        assertNull(StaticFileServer.parseRange("bytes=0-1,5-6", 1000));
+        assertFalse(StaticFileServer.isSingleByteRange("bytes=0-1,5-6"));
+        assertFalse(StaticFileServer.isSingleByteRange("items=0-1"));
+        assertFalse(StaticFileServer.isSingleByteRange("bytes=-"));
+    }
+
+    @Test
+    void onlyHashedViteAssetsAreImmutable() {
+        assertTrue(StaticFileServer.isImmutableAsset("/assets/index-BQv3Xk9a.js"));
+        assertTrue(StaticFileServer.isImmutableAsset("/assets/index-Cz1_bRTm.css"));
+        assertFalse(StaticFileServer.isImmutableAsset("/index.html"));
+        assertFalse(StaticFileServer.isImmutableAsset("/assets/my-component.js"));
+        assertFalse(StaticFileServer.isImmutableAsset("/js/index-BQv3Xk9a.js"));
+    }
+
+    @Test
+    void etagMatchingIgnoresWeakPrefix() {
+        String etag = StaticFileServer.buildEtag(1024, 1700000000000L);
+        assertTrue(StaticFileServer.matchesEtag(etag, etag));
+        assertTrue(StaticFileServer.matchesEtag("\"other\", W/" + etag, etag));
+        assertTrue(StaticFileServer.matchesEtag("*", etag));
+        assertFalse(StaticFileServer.matchesEtag(StaticFileServer.buildEtag(1025, 1700000000000L), etag));
+    }
+
+    @Test
+    void acceptEncodingHonoursQualityAndWildcard() {
+        assertTrue(StaticFileServer.acceptsEncoding("gzip, deflate, br, zstd", "br"));
+        assertTrue(StaticFileServer.acceptsEncoding("x-gzip", "gzip"));
+        assertFalse(StaticFileServer.acceptsEncoding("gzip, br;q=0", "br"));
+        assertFalse(StaticFileServer.acceptsEncoding("identity", "gzip"));
+        assertTrue(StaticFileServer.acceptsEncoding("*;q=0.5", "br"));
+        assertFalse(StaticFileServer.acceptsEncoding("gzip;q=0, *", "gzip"));
+    }
+
+    @Test
+    void cachedAssetPrefersAcceptedEncoding() {
+        Variant brotli = new Variant("br", ByteBuffer.allocateDirect(1), 0, "\"br\"");
+        Variant gzip = new Variant("gzip", ByteBuffer.allocateDirect(2), 0, "\"gzip\"");
+        Variant identity = new Variant(null, ByteBuffer.allocateDirect(3), 0, "\"identity\"");
+        CachedAsset asset = new CachedAsset(List.of(brotli, gzip, identity));
+        assertEquals(brotli, asset.select("gzip, deflate, br"));
+        assertEquals(gzip, asset.select("gzip"));
+        assertEquals(identity, asset.select(null));
+        assertEquals(identity, asset.select("br;q=0, gzip;q=0"));
+    }
+
+    @Test
+    void onlyTextLikeAssetsAreCompressible() {
+        assertTrue(MimeTypes.isCompressible("/assets/index-BQv3Xk9a.js"));
+        assertTrue(MimeTypes.isCompressible("/index.html"));
+        assertTrue(MimeTypes.isCompressible("/vite.svg"));
+        assertFalse(MimeTypes.isCompressible("/assets/logo.png"));
+        assertFalse(MimeTypes.isCompressible("/assets/inter.woff2"));
+        assertFalse(MimeTypes.isCompressible("/index.html.gz"));
+    }
+
+    @Test
+    void contentTypesCarryCharsetForText() {
+        assertEquals("text/html; charset=UTF-8", MimeTypes.contentType("/index.html"));
+        assertEquals("application/javascript; charset=UTF-8", MimeTypes.contentType("/assets/index-BQv3Xk9a.js"));
+        assertEquals("image/svg+xml; charset=UTF-8", MimeTypes.contentType("/vite.svg"));
+        assertEquals("font/woff2", MimeTypes.contentType("/assets/inter.WOFF2"));
+        assertEquals(MimeTypes.DEFAULT_TYPE, MimeTypes.contentType("/.env"));
+        assertEquals(MimeTypes.DEFAULT_TYPE, MimeTypes.contentType("/LICENSE"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.uloaix.xiaolu_aicode.core;
+
+import com.uloaix.xiaolu_aicode.core.parser.CodeBlock;
+import com.uloaix.xiaolu_aicode.core.parser.StreamingCodeParser;
+import com.uloaix.xiaolu_aicode.core.saver.CodeFileSaverExecutor;
+import com.uloaix.xiaolu_aicode.core.saver.CodeFileSaverTemplate;
+import com.uloaix.xiaolu_aicode.model.enums.CodeGenTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingCodeParserTest {
+
+    private static final String MULTI_FILE_OUTPUT = """
+            创建一个完整的网页：
+            ```html
+            <!DOCTYPE html>
+            <html><body><h1>Hello `World`</h1></body></html>
+            ```
+            ```CSS
+            h1 { color: red; }
+            ```
+            ```javascript
+            console.log('hi');
+            ```
+            完成
+            """;
+
+    @Test
+    void parseWholeOutput() {
+        List<CodeBlock> blocks = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(blocks::add);
+        parser.feed(MULTI_FILE_OUTPUT);
+        parser.finish();
+        assertEquals(3, blocks.size());
+        assertEquals("html", blocks.get(0).language());
+        assertTrue(blocks.get(0).content().contains("Hello `World`"));
+        assertEquals("css", blocks.get(1).language());
+        assertEquals("h1 { color: red; }\n", blocks.get(1).content());
+        assertEquals("javascript", blocks.get(2).language());
+    }
+
+    @Test
+    void parseCharByChar() {
+        // 围栏、语言标识被任意切分时结果应与整段解析一致
+        List<CodeBlock> expected = new ArrayList<>();
+        StreamingCodeParser wholeParser = new StreamingCodeParser(expected::add);
+        wholeParser.feed(MULTI_FILE_OUTPUT);
+
+        List<CodeBlock> blocks = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(blocks::add);
+        for (int i = 0; i < MULTI_FILE_OUTPUT.length(); i++) {
+            parser.feed(MULTI_FILE_OUTPUT.substring(i, i + 1));
+        }
+        assertEquals(expected, blocks);
+    }
+
+    @Test
+    void unclosedBlockIsDiscarded() {
+        List<CodeBlock> blocks = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(blocks::add);
+        parser.feed("```html\n<html>");
+        parser.finish();
+        assertTrue(parser.hasSeenFence());
+        assertTrue(blocks.isEmpty());
+    }
+
+    @Test
+    void inlineCodeIsIgnored() {
+        List<CodeBlock> blocks = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(blocks::add);
+        parser.feed("使用 ```npm i``` 安装依赖");
+        parser.finish();
+        assertFalse(parser.hasSeenFence());
+        assertTrue(blocks.isEmpty());
+    }
+
+    @Test
+    void unlabeledFenceIsPageInHtmlMode() {
+        // HTML 模式下页面放在未标注语言的代码块中时仍应保存为 index.html
+        List<CodeBlock> blocks = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(blocks::add);
+        parser.feed("页面如下：\n```\n<!DOCTYPE html>\n<html><body>Hi</body></html>\n```\n");
+        parser.finish();
+        assertEquals(1, blocks.size());
+        assertEquals("", blocks.get(0).language());
+        assertEquals(CodeFileSaverTemplate.HTML_FILE_NAME,
+                CodeFileSaverExecutor.resolveFileName(blocks.get(0).language(), CodeGenTypeEnum.HTML));
+        assertEquals(CodeFileSaverTemplate.HTML_FILE_NAME, CodeFileSaverExecutor.resolveFileName("htm", CodeGenTypeEnum.HTML));
+        assertNull(CodeFileSaverExecutor.resolveFileName("", CodeGenTypeEnum.MULTI_FILE));
+    }
+}
@@ -0,0 +1,77 @@
+package com.uloaix.xiaolu_aicode.core;
+
+import com.uloaix.xiaolu_aicode.core.parser.StreamingJsonObjectParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingJsonObjectParserTest {
+
+    private static final String ARGUMENTS = "{\"relativeFilePath\": \"src/App.vue\", \"size\": 12, "
+            + "\"extra\": {\"x\": \"}\\\"\"}, "
+            + "\"content\": \"<template>\\n  <div class=\\\"a\\\">\\u4f60\\uD83D\\uDE00</div>\\n</template>\"}";
+
+    private static final String CONTENT = "<template>\n  <div class=\"a\">你😀</div>\n</template>";
+
+    @Test
+    void parseInChunksOfAnySize() {
+        // 转义序列与代理对被任意切分时，拼接后的增量应与完整内容一致
+        for (int step : new int[]{1, 2, 3, 7, ARGUMENTS.length()}) {
+            StringBuilder content = new StringBuilder();
+            List<String> events = new ArrayList<>();
+            StreamingJsonObjectParser parser = new StreamingJsonObjectParser(Set.of("content"),
+                    new StreamingJsonObjectParser.Listener() {
+                        @Override
+                        public void onValue(String key, String value) {
+                            events.add(key + "=" + value);
+                        }
+
+                        @Override
+                        public void onDelta(String key, String delta) {
+                            assertFalse(Character.isHighSurrogate(delta.charAt(delta.length() - 1)));
+                            content.append(delta);
+                        }
+
+                        @Override
+                        public void onEnd(String key) {
+                            events.add("end:" + key);
+                        }
+                    });
+            for (int i = 0; i < ARGUMENTS.length(); i += step) {
+                parser.feed(ARGUMENTS.substring(i, Math.min(ARGUMENTS.length(), i + step)));
+            }
+            assertTrue(parser.isDone());
+            assertEquals(List.of("relativeFilePath=src/App.vue", "end:content"), events);
+            assertEquals(CONTENT, content.toString());
+        }
+    }
+
+    @Test
+    void keepInvalidUnicodeEscapeAsRawText() {
+        StringBuilder content = new StringBuilder();
+        StreamingJsonObjectParser parser = new StreamingJsonObjectParser(Set.of("content"),
+                new StreamingJsonObjectParser.Listener() {
+                    @Override
+                    public void onValue(String key, String value) {
+                    }
+
+                    @Override
+                    public void onDelta(String key, String delta) {
+                        content.append(delta);
+                    }
+
+                    @Override
+                    public void onEnd(String key) {
+                    }
+                });
+        parser.feed("{\"content\": \"a\\u12G\\u4f60\\u\"}");
+        assertTrue(parser.isDone());
+        assertEquals("a\\u12G你\\u", content.toString());
+    }
+}
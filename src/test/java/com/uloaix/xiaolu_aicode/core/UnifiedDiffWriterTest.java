@@ -0,0 +1,56 @@
+package com.uloaix.xiaolu_aicode.core;
+
+import com.uloaix.xiaolu_aicode.core.diff.MyersDiff;
+import com.uloaix.xiaolu_aicode.core.diff.UnifiedDiffWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UnifiedDiffWriterTest {
+
+    @Test
+    void formatsMergedHunksLikeDiffU() {
+        List<String> before = List.of("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12");
+        List<String> after = List.of("1", "two", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13");
+        String expected = """
+                --- a/src/App.vue
+                +++ b/src/App.vue
+                @@ -1,5 +1,5 @@
+                 1
+                -2
+                +two
+                 3
+                 4
+                 5
+                @@ -10,3 +10,4 @@
+                 10
+                 11
+                 12
+                +13
+                """;
+        assertEquals(expected, UnifiedDiffWriter.format("src/App.vue", "src/App.vue", before, after, 100));
+        assertEquals("", UnifiedDiffWriter.format("a", "a", before, before, 100));
+    }
+
+    @Test
+    void fallsBackToReplacementWhenEditLimitExceeded() {
+        List<String> before = List.of("a", "b", "c", "x");
+        List<String> after = List.of("c", "b", "a", "x");
+        List<MyersDiff.Edit> minimal = MyersDiff.diff(before, after, 100);
+        List<MyersDiff.Edit> bounded = MyersDiff.diff(before, after, 1);
+        assertEquals(4, minimal.stream().filter(edit -> edit.operation() != MyersDiff.Operation.EQUAL).count());
+        assertEquals(6, bounded.stream().filter(edit -> edit.operation() != MyersDiff.Operation.EQUAL).count());
+    }
+
+    @Test
+    void writesBinaryNoticeLikeGit() throws IOException {
+        StringBuilder out = new StringBuilder();
+        UnifiedDiffWriter.writeBinary("img/logo.png", "img/logo.png", out);
+        UnifiedDiffWriter.writeBinary(null, "img/new.png", out);
+        assertEquals("Binary files a/img/logo.png and b/img/logo.png differ\n"
+                + "Binary files /dev/null and b/img/new.png differ\n", out.toString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.uloaix.xiaolu_aicode.utils;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileDigestUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void linesMatchBufferedReader() throws Exception {
+        for (String content : new String[]{"", "a", "a\n", "a\nb", "a\r\nb\r\n", "\r\r", "a\rb\n\n", "你好\n世界😀"}) {
+            File file = write(content);
+            FileDigestUtils.FileDigest digest = FileDigestUtils.digest(file, true, 2000);
+            assertEquals(countWithReader(file), digest.lines(), content);
+            assertEquals(DigestUtil.sha256Hex(content), digest.sha256());
+            assertEquals(content, digest.excerpt());
+        }
+    }
+
+    @Test
+    void excerptIsTruncatedByChars() throws Exception {
+        File file = write("你好世界😀abc");
+        assertEquals("你好世界😀", FileDigestUtils.digest(file, true, 6).excerpt());
+        FileDigestUtils.FileDigest binary = FileDigestUtils.digest(file, false, 6);
+        assertNull(binary.lines());
+        assertNull(binary.excerpt());
+    }
+
+    private File write(String content) throws Exception {
+        Path path = Files.createTempFile(tempDir, "digest", ".txt");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path.toFile();
+    }
+
+    private int countWithReader(File file) throws Exception {
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
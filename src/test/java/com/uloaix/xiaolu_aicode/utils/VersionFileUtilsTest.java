@@ -0,0 +1,105 @@
+package com.uloaix.xiaolu_aicode.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionFileUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void cloneSharesFilesUntilRewritten() throws Exception {
+        Path v1 = tempDir.resolve("v1");
+        Files.createDirectories(v1.resolve("src"));
+        Files.createDirectories(v1.resolve("dist"));
+        Files.writeString(v1.resolve("src/App.vue"), "old");
+        Files.writeString(v1.resolve("src/main.js"), "main");
+        Files.writeString(v1.resolve("dist/index.html"), "built");
+
+        Path v2 = tempDir.resolve("v2");
+        assertEquals(2, VersionFileUtils.cloneWithHardLinks(v1, v2, VersionFileUtils.CLONE_EXCLUDED_DIRS));
+        assertFalse(Files.exists(v2.resolve("dist")));
+        assertTrue(Files.isSameFile(v1.resolve("src/main.js"), v2.resolve("src/main.js")));
+
+        // 原子写入只替换新版本的目录项，旧版本内容保持不变
+        VersionFileUtils.writeAtomically(v2.resolve("src/App.vue"), "new".getBytes(StandardCharsets.UTF_8));
+        assertEquals("old", Files.readString(v1.resolve("src/App.vue")));
+        assertEquals("new", Files.readString(v2.resolve("src/App.vue")));
+        assertFalse(Files.isSameFile(v1.resolve("src/App.vue"), v2.resolve("src/App.vue")));
+    }
+
+    @Test
+    void deleteDirectoryCountsOnlyUnsharedFiles() throws Exception {
+        Path shared = tempDir.resolve("shared.txt");
+        Files.writeString(shared, "shared");
+        Path outside = tempDir.resolve("outside");
+        Files.createDirectories(outside);
+        Files.writeString(outside.resolve("keep.txt"), "keep");
+
+        Path version = tempDir.resolve("v1");
+        Files.createDirectories(version.resolve("src"));
+        Files.writeString(version.resolve("src/own.txt"), "own");
+        Files.createLink(version.resolve("src/shared.txt"), shared);
+        Files.createSymbolicLink(version.resolve("node_modules"), outside);
+
+        assertEquals(3, VersionFileUtils.deleteDirectory(version));
+        assertFalse(Files.exists(version));
+        // 共享的硬链接与符号链接目标都不受影响
+        assertEquals("shared", Files.readString(shared));
+        assertTrue(Files.exists(outside.resolve("keep.txt")));
+    }
+
+    @Test
+    void copyReusingBaseLinksUnchangedFilesWithSiblings() throws Exception {
+        Path previous = tempDir.resolve("release1");
+        Files.createDirectories(previous.resolve("assets"));
+        Files.writeString(previous.resolve("index.html"), "<html>old</html>");
+        Files.writeString(previous.resolve("index.html.gz"), "gz-old");
+        Files.writeString(previous.resolve("assets/app.js"), "same");
+        Files.writeString(previous.resolve("assets/app.js.gz"), "gz-same");
+        Files.writeString(previous.resolve("removed.css"), "gone");
+
+        // 重新构建：内容相同但修改时间不同的文件也应复用
+        Path dist = tempDir.resolve("dist");
+        Files.createDirectories(dist.resolve("assets"));
+        Files.writeString(dist.resolve("index.html"), "<html>new page</html>");
+        Files.writeString(dist.resolve("assets/app.js"), "same");
+        Files.setLastModifiedTime(dist.resolve("assets/app.js"), FileTime.fromMillis(1_000_000L));
+
+        Path staging = tempDir.resolve("release2");
+        assertEquals(1, VersionFileUtils.copyReusingBase(dist, staging, previous, Set.of(".gz", ".br")));
+        assertTrue(Files.isSameFile(previous.resolve("assets/app.js"), staging.resolve("assets/app.js")));
+        assertTrue(Files.isSameFile(previous.resolve("assets/app.js.gz"), staging.resolve("assets/app.js.gz")));
+        assertEquals("<html>new page</html>", Files.readString(staging.resolve("index.html")));
+        // 变化文件的旧副本与已删除的文件都不会带入新 release
+        assertFalse(Files.exists(staging.resolve("index.html.gz")));
+        assertFalse(Files.exists(staging.resolve("removed.css")));
+        assertEquals("<html>old</html>", Files.readString(previous.resolve("index.html")));
+    }
+
+    @Test
+    void detachHardLinkKeepsOtherLinksUntouched() throws Exception {
+        Path blob = tempDir.resolve("blob");
+        Files.writeString(blob, "{\"name\":\"app\"}");
+        Path packageJson = tempDir.resolve("package.json");
+        Files.createLink(packageJson, blob);
+
+        assertTrue(VersionFileUtils.detachHardLink(packageJson));
+        assertFalse(Files.isSameFile(blob, packageJson));
+        // 断开后原地改写不再影响共享方
+        Files.writeString(packageJson, "{}");
+        assertEquals("{\"name\":\"app\"}", Files.readString(blob));
+        assertFalse(VersionFileUtils.detachHardLink(packageJson));
+    }
+}